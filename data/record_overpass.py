@@ -0,0 +1,50 @@
+"""
+Records the Overpass response the OverpassFetcher tests replay.
+Saves it as src/test/resources/overpass/towns.json (run from the project root).
+Usage: python3 data/record_overpass.py [lat lng radius_m]   (default: 41.84 -87.68 12000)
+
+One "out geom" query for the admin_level=8 boundaries in the square around the
+test's search circle, the same query the fetcher sends per tile. The test stub
+serves each tile the recorded relations whose bounds reach into it.
+"""
+
+import json
+import math
+import sys
+import urllib.request
+import urllib.parse
+
+OUT = "src/test/resources/overpass/towns.json"
+METERS_PER_DEGREE = 111_320
+
+def fetch(query):
+    data = urllib.parse.urlencode({"data": query}).encode()
+    req = urllib.request.Request(
+        "https://overpass-api.de/api/interpreter",
+        data=data,
+        headers={"User-Agent": "UrbEx/1.0 test-recording"}
+    )
+    with urllib.request.urlopen(req, timeout=120) as resp:
+        return json.loads(resp.read())
+
+def main():
+    lat, lng, radius = 41.84, -87.68, 12000
+    if len(sys.argv) == 4:
+        lat, lng, radius = float(sys.argv[1]), float(sys.argv[2]), int(sys.argv[3])
+    dlat = radius / METERS_PER_DEGREE
+    dlng = radius / (METERS_PER_DEGREE * math.cos(math.radians(lat)))
+    s, w, n, e = lat - dlat, lng - dlng, lat + dlat, lng + dlng
+
+    print(f"Recording boundaries in ({s:.6f},{w:.6f},{n:.6f},{e:.6f})...")
+    response = fetch(
+        "[out:json][timeout:90];"
+        f'(relation["boundary"="administrative"]["admin_level"="8"]({s:.6f},{w:.6f},{n:.6f},{e:.6f}););'
+        "out geom;"
+    )
+    print(f"  Got {len(response['elements'])} relations.")
+    with open(OUT, "w") as f:
+        json.dump(response, f)
+    print(f"  Saved to {OUT}.")
+
+if __name__ == "__main__":
+    main()
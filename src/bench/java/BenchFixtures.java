@@ -0,0 +1,443 @@
+import bench.Fixtures;
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.painter.CompoundPainter;
+import org.jxmapviewer.painter.Painter;
+import org.jxmapviewer.viewer.DefaultTileFactory;
+import org.jxmapviewer.viewer.GeoPosition;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Fixtures for the JMH benchmarks in src/bench/java/bench.
+ *
+ * Implements bench.Fixtures, the typed view the benchmarks load once by
+ * reflection; the runnable checks beside this class call it directly.
+ *
+ * Everything runs on the bundled Chicago data under -Dbench.data (default "data"),
+ * except the gazetteer, which is synthetic unless -Dbench.gazetteer is set.
+ */
+public final class BenchFixtures implements Fixtures {
+
+    private static final String DATA_DIR = System.getProperty("bench.data", "data");
+    private static final String REGIONS  = DATA_DIR + "/Chicago.geojson";
+    private static final String BUSES    = DATA_DIR + "/chicago_buses.geojson";
+    private static final String STATIONS = DATA_DIR + "/chicago_stations.geojson";
+
+    private static final int VIEW_WIDTH = 900, VIEW_HEIGHT = 700, VIEW_ZOOM = 7;
+
+    // Places in the synthetic gazetteer (cities1000.txt has about this many) and rows asked per query
+    static final int GAZETTEER_SIZE = 150_000;
+    static final int NEARBY_ROWS = 50;
+    // Probe points or places each lookup benchmark cycles through (a power of two)
+    private static final int PROBES = 1024;
+
+    private static CityOverlay city;
+    private static Gazetteer gazetteer;
+
+    public BenchFixtures() {}
+
+    /** The bundled city, loaded and prepared once per JVM. */
+    static synchronized CityOverlay city() throws Exception {
+        if (city == null) {
+            CityOverlay c = new CityOverlay();
+            readGeoJson(c);
+            c.prepare();
+            city = c;
+        }
+        return city;
+    }
+
+    private static void readGeoJson(CityOverlay c) throws Exception {
+        UrbEx.loadFromGeoJson(REGIONS, c.regions, c.transitLines);
+        UrbEx.loadBusLines(BUSES, c.busLines);
+        c.trainStations = UrbEx.loadPoints(STATIONS);
+    }
+
+    // ── Loading ──────────────────────────────────────────────────────────────
+
+    /** Streams the three GeoJSON files into a fresh overlay. */
+    @Override
+    public Callable<Object> geoJsonLoad() {
+        return () -> {
+            CityOverlay c = new CityOverlay();
+            readGeoJson(c);
+            return c;
+        };
+    }
+
+    /** Reads the same data back from a city pack written once to a temp file. */
+    @Override
+    public Callable<Object> cityPackLoad() throws Exception {
+        CityOverlay c = city();
+        Path pack = Files.createTempFile("bench", ".pack");
+        pack.toFile().deleteOnExit();
+        CityPack.write(pack, c.regions, c.transitLines, c.busLines, c.trainStations, PackedGeometry.EMPTY);
+        return () -> {
+            CityOverlay out = new CityOverlay();
+            PackedGeometry[] points = CityPack.read(pack, out.regions, out.transitLines, out.busLines);
+            out.trainStations = points[0];
+            return out;
+        };
+    }
+
+    // ── Geometry ─────────────────────────────────────────────────────────────
+
+    /**
+     * Stitches every Chicago region back together after cutting its rings into
+     * ways of about waySize vertices, shuffled and with every other way reversed,
+     * which is how Overpass hands relation members back.
+     */
+    @Override
+    public Supplier<Object> stitchRings(int waySize) throws Exception {
+        Random rnd = new Random(42);
+        List<List<double[]>> relations = new ArrayList<>();
+        for (UrbEx.TownRegion r : city().regions) {
+            List<double[]> ways = new ArrayList<>();
+            for (int p = 0; p < r.rings.partCount(); p++) {
+                int start = r.rings.partStart(p), end = r.rings.partEnd(p);
+                for (int from = start; from < end - 1; from += waySize) {
+                    int to = Math.min(end, from + waySize + 1); // ways share their end vertex
+                    double[] way = new double[(to - from) * 2];
+                    for (int v = from; v < to; v++) {
+                        way[(v - from) * 2] = r.rings.lat(v);
+                        way[(v - from) * 2 + 1] = r.rings.lng(v);
+                    }
+                    if (ways.size() % 2 == 1) reverse(way);
+                    ways.add(way);
+                }
+            }
+            Collections.shuffle(ways, rnd);
+            relations.add(ways);
+        }
+        return () -> {
+            List<double[]> last = null;
+            for (List<double[]> ways : relations) last = SuburbanScrambleMAP.stitchRings(ways, List.of());
+            return last;
+        };
+    }
+
+    /**
+     * Stitches one synthetic county-sized relation: an outer ring of wayCount ways and
+     * a hole of wayCount / 4 ways, each way 8 segments long, shuffled and with every
+     * other way reversed.
+     */
+    @Override
+    public Supplier<Object> stitchSyntheticRelation(int wayCount) {
+        Random rnd = new Random(42);
+        List<double[]> outer = circleWays(41.8, -87.7, 1.0, wayCount, rnd);
+        List<double[]> inner = circleWays(41.8, -87.7, 0.3, Math.max(1, wayCount / 4), rnd);
+        return () -> SuburbanScrambleMAP.stitchRings(outer, inner);
+    }
+
+    private static List<double[]> circleWays(double lat, double lng, double radius, int wayCount, Random rnd) {
+        int segments = 8, vertices = wayCount * segments;
+        List<double[]> ways = new ArrayList<>(wayCount);
+        for (int w = 0; w < wayCount; w++) {
+            double[] way = new double[(segments + 1) * 2];
+            for (int k = 0; k <= segments; k++) {
+                double a = 2 * Math.PI * ((w * segments + k) % vertices) / vertices;
+                way[k * 2] = lat + radius * Math.sin(a);
+                way[k * 2 + 1] = lng + radius * Math.cos(a);
+            }
+            if (w % 2 == 1) reverse(way);
+            ways.add(way);
+        }
+        Collections.shuffle(ways, rnd);
+        return ways;
+    }
+
+    private static void reverse(double[] way) {
+        for (int i = 0, j = way.length - 2; i < j; i += 2, j -= 2) {
+            double lat = way[i], lng = way[i + 1];
+            way[i] = way[j];
+            way[i + 1] = way[j + 1];
+            way[j] = lat;
+            way[j + 1] = lng;
+        }
+    }
+
+    /**
+     * Total area of all regions with their metrics computed from scratch: the
+     * one-off cost per region at load, which hover popups and painters no longer pay.
+     */
+    @Override
+    public DoubleSupplier areaSqMiles() throws Exception {
+        List<UrbEx.TownRegion> regions = city().regions;
+        return () -> {
+            double total = 0;
+            for (UrbEx.TownRegion r : regions) total += RegionMetrics.of(r.rings).areaSqMiles();
+            return total;
+        };
+    }
+
+    // ── Hit testing ──────────────────────────────────────────────────────────
+
+    /**
+     * Looks up one of a fixed set of random points inside the city's bounds per call;
+     * see Fixtures.Lookup for the ways. Returns the hit region or null.
+     */
+    @Override
+    public Supplier<Object> regionLookup(Lookup index) throws Exception {
+        CityOverlay c = city();
+        double minLat = Double.MAX_VALUE, minLng = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+        for (UrbEx.TownRegion r : c.regions) {
+            minLat = Math.min(minLat, r.rings.minLat);
+            minLng = Math.min(minLng, r.rings.minLng);
+            maxLat = Math.max(maxLat, r.rings.maxLat);
+            maxLng = Math.max(maxLng, r.rings.maxLng);
+        }
+        Random rnd = new Random(42);
+        GeoPosition[] probes = new GeoPosition[PROBES];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = new GeoPosition(
+                    minLat + rnd.nextDouble() * (maxLat - minLat), minLng + rnd.nextDouble() * (maxLng - minLng));
+        }
+        return switch (index) {
+            case RTREE -> cycling(probes, c::findRegionAt);
+            case SCREEN_PATH -> {
+                JXMapViewer map = view(c);
+                List<List<List<GeoPosition>>> rings = geoRings(c.regions);
+                yield cycling(probes, p -> {
+                    Point2D clickPt = map.convertGeoPositionToPoint(p);
+                    for (int r = 0; r < rings.size(); r++) {
+                        Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+                        for (List<GeoPosition> ring : rings.get(r)) {
+                            boolean first = true;
+                            for (GeoPosition gp : ring) {
+                                Point2D pt = map.convertGeoPositionToPoint(gp);
+                                if (first) { path.moveTo(pt.getX(), pt.getY()); first = false; }
+                                else path.lineTo(pt.getX(), pt.getY());
+                            }
+                            path.closePath();
+                        }
+                        if (path.contains(clickPt)) return c.regions.get(r);
+                    }
+                    return null;
+                });
+            }
+            case PACKED -> cycling(probes, p -> {
+                for (UrbEx.TownRegion r : c.regions) {
+                    if (r.rings.contains(p.getLatitude(), p.getLongitude())) return r;
+                }
+                return null;
+            });
+        };
+    }
+
+    /** Each region's rings as lists of GeoPosition, the way regions were held before PackedGeometry. */
+    private static List<List<List<GeoPosition>>> geoRings(List<UrbEx.TownRegion> regions) {
+        List<List<List<GeoPosition>>> all = new ArrayList<>();
+        for (UrbEx.TownRegion r : regions) {
+            List<List<GeoPosition>> rings = new ArrayList<>();
+            for (int p = 0; p < r.rings.partCount(); p++) {
+                List<GeoPosition> ring = new ArrayList<>();
+                for (int v = r.rings.partStart(p); v < r.rings.partEnd(p); v++) {
+                    ring.add(new GeoPosition(r.rings.lat(v), r.rings.lng(v)));
+                }
+                rings.add(ring);
+            }
+            all.add(rings);
+        }
+        return all;
+    }
+
+    // ── Gazetteer ────────────────────────────────────────────────────────────
+
+    /**
+     * A synthetic GeoNames dump the size of cities1000.txt: most places cluster
+     * around random metro centers, the rest are scattered. States are 5 degree cells,
+     * so a state filter keeps a realistic share of each query's neighbours.
+     * -Dbench.gazetteer=<cities1000.txt> benchmarks a real dump instead.
+     */
+    static synchronized Gazetteer gazetteer() throws Exception {
+        if (gazetteer != null) return gazetteer;
+        String file = System.getProperty("bench.gazetteer");
+        if (file != null) return gazetteer = Gazetteer.load(Path.of(file));
+
+        Random rnd = new Random(42);
+        double[][] metros = new double[2000][];
+        for (int m = 0; m < metros.length; m++) {
+            metros[m] = new double[] {-40 + rnd.nextDouble() * 100, -180 + rnd.nextDouble() * 360};
+        }
+        StringBuilder tsv = new StringBuilder(GAZETTEER_SIZE * 80);
+        for (int i = 0; i < GAZETTEER_SIZE; i++) {
+            double lat, lng;
+            if (i % 10 < 7) {
+                double[] metro = metros[rnd.nextInt(metros.length)];
+                lat = Math.max(-89, Math.min(89, metro[0] + rnd.nextGaussian() * 0.4));
+                lng = Math.max(-180, Math.min(180, metro[1] + rnd.nextGaussian() * 0.5));
+            } else {
+                lat = -55 + rnd.nextDouble() * 125;
+                lng = -180 + rnd.nextDouble() * 360;
+            }
+            String state = "S" + (int) Math.floor((lat + 90) / 5) + "_" + (int) Math.floor((lng + 180) / 5);
+            tsv.append(i).append("\tPlace ").append(i).append("\tPlace ").append(i).append("\t\t")
+               .append(lat).append('\t').append(lng).append("\tP\tPPL\tXX\t\t").append(state)
+               .append("\t\t\t\t").append(1000 + rnd.nextInt(100_000)).append("\t\t0\tUTC\t2024-01-01\n");
+        }
+        return gazetteer = Gazetteer.read(new BufferedReader(new StringReader(tsv.toString())));
+    }
+
+    /**
+     * Radius queries around a fixed set of random places, filtered to each place's
+     * state as the game asks GeoNames; see Fixtures.Nearby for the ways. Returns
+     * the nearest-first ids.
+     */
+    @Override
+    public Supplier<Object> gazetteerNearby(Nearby index, int radiusKm) throws Exception {
+        Gazetteer g = gazetteer();
+        Random rnd = new Random(7);
+        Integer[] probes = new Integer[PROBES];
+        for (int i = 0; i < probes.length; i++) probes[i] = rnd.nextInt(g.size());
+        return switch (index) {
+            case KDTREE -> cycling(probes,
+                    p -> g.nearby(g.lat(p), g.lng(p), radiusKm, g.country(p), g.admin1(p), NEARBY_ROWS));
+            case LINEAR -> cycling(probes,
+                    p -> linearNearby(g, g.lat(p), g.lng(p), radiusKm, g.country(p), g.admin1(p), NEARBY_ROWS));
+        };
+    }
+
+    /** Gazetteer.nearby without the k-d tree: every place, through the haversine. */
+    static int[] linearNearby(Gazetteer g, double lat, double lng, double radiusKm,
+                              String country, String admin1, int maxRows) {
+        Gazetteer.Hits hits = new Gazetteer.Hits();
+        for (int id = 0; id < g.size(); id++) {
+            if (!g.in(id, country, admin1)) continue;
+            double d = Gazetteer.distanceKm(lat, lng, g.lat(id), g.lng(id));
+            if (d <= radiusKm) hits.add(id, d);
+        }
+        return hits.nearest(maxRows);
+    }
+
+    // ── Rendering ────────────────────────────────────────────────────────────
+
+    /**
+     * Paints the full overlay into an offscreen VIEW_WIDTH x VIEW_HEIGHT image, the
+     * way the map viewer would, minus the base map tiles. COLD drops the raster
+     * layer caches before each frame.
+     */
+    @Override
+    public Supplier<Object> renderOverlay(Frames frames) throws Exception {
+        CityOverlay c = city();
+        JXMapViewer map = view(c);
+        Point2D home = map.getCenter();
+        Painter<JXMapViewer> painter = c.painter();
+        BufferedImage image = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        return perFrame(frame -> {
+            if (frames == Frames.COLD) c.invalidateLayers();
+            moveView(map, home, frames, frame);
+            paint(painter, map, image);
+            return image;
+        });
+    }
+
+    /**
+     * Paints only the claim-colour layer, with a third of the regions claimed by
+     * each team; see Fixtures.ClaimPainter. COLD marks the claims changed before
+     * each frame, so the batched layer rebuilds its merged paths.
+     */
+    @Override
+    public Supplier<Object> renderClaims(ClaimPainter painter, Frames frames) throws Exception {
+        CityOverlay c = city();
+        Random rnd = new Random(3);
+        for (UrbEx.TownRegion r : c.regions) r.claimState = rnd.nextInt(3);
+        c.claimsChanged();
+
+        JXMapViewer map = view(c);
+        Point2D home = map.getCenter();
+        Painter<JXMapViewer> layer = switch (painter) {
+            case BATCHED -> (g, m, w, h) -> c.paintClaims(g, m);
+            case LAMBDAS -> perRegionClaimPainter(c.regions);
+        };
+        BufferedImage image = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        return perFrame(frame -> {
+            if (frames == Frames.COLD) c.claimsChanged();
+            moveView(map, home, frames, frame);
+            paint(layer, map, image);
+            return image;
+        });
+    }
+
+    /** The claim layer as it was before batching: a CompoundPainter with one lambda per region. */
+    private static Painter<JXMapViewer> perRegionClaimPainter(List<UrbEx.TownRegion> regions) {
+        Color[] fills = {new Color(200, 200, 255, 60), new Color(0, 255, 0, 80), new Color(255, 0, 0, 80)};
+        CityOverlay.ViewportCuller culler = new CityOverlay.ViewportCuller();
+        List<Painter<JXMapViewer>> painters = new ArrayList<>();
+        painters.add((g2, map, w, h) -> culler.begin(map, g2.getClipBounds(), CityOverlay.CULL_MARGIN_PX));
+        for (UrbEx.TownRegion region : regions) {
+            painters.add((g2, map, w, h) -> {
+                if (!culler.visible(region.rings)) return;
+                Path2D path = region.rings.worldPath(map.getTileFactory().getInfo(), map.getZoom(), true);
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.translate(-culler.viewX, -culler.viewY);
+                g2.setColor(fills[region.claimState]);
+                g2.fill(path);
+                g2.translate(culler.viewX, culler.viewY);
+            });
+        }
+        CompoundPainter<JXMapViewer> compound = new CompoundPainter<>(painters);
+        compound.setCacheable(false);
+        return compound;
+    }
+
+    /** A headless VIEW_WIDTH x VIEW_HEIGHT map at VIEW_ZOOM over the city's center. */
+    private static JXMapViewer view(CityOverlay c) {
+        JXMapViewer map = new JXMapViewer();
+        map.setTileFactory(new DefaultTileFactory(
+                new OSMTileFactoryInfo("CartoDB", "https://a.basemaps.cartocdn.com/light_all")));
+        map.setSize(VIEW_WIDTH, VIEW_HEIGHT);
+        map.setZoom(VIEW_ZOOM);
+        map.setAddressLocation(c.center());
+        return map;
+    }
+
+    /** PAN moves the view 37 px per frame, back and forth across the city; the others keep it. */
+    private static void moveView(JXMapViewer map, Point2D home, Frames frames, int frame) {
+        if (frames != Frames.PAN) return;
+        int step = frame % 64;
+        int offset = (step < 32 ? step : 64 - step) * 37;
+        map.setCenter(new Point2D.Double(home.getX() + offset, home.getY() + offset / 2.0));
+    }
+
+    // ── Probes and frames ────────────────────────────────────────────────────
+
+    /** One query per call, cycling through probes; probes.length must be a power of two. */
+    private static <P> Supplier<Object> cycling(P[] probes, Function<? super P, Object> query) {
+        int[] next = {0};
+        return () -> query.apply(probes[next[0]++ & (probes.length - 1)]);
+    }
+
+    /** One frame per call, numbered from 0. */
+    private static Supplier<Object> perFrame(IntFunction<Object> frame) {
+        int[] next = {0};
+        return () -> frame.apply(next[0]++);
+    }
+
+    private static void paint(Painter<JXMapViewer> painter, JXMapViewer map, BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        try {
+            painter.paint(g, map, VIEW_WIDTH, VIEW_HEIGHT);
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.painter.Painter;
+import org.jxmapviewer.viewer.DefaultTileFactory;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Times UrbEx overlay frames through simulated drag gestures over the bundled
+ * Chicago data, headless: each gesture pans 30 frames of 25 px, alternating
+ * direction, with one wheel zoom step in the middle, then goes idle for the
+ * refinement frame. Run once with gesture frames and once drawing every frame at
+ * full quality, and prints both against the frame budget. Base map tiles are
+ * not part of it; CityOverlayGestureTest checks what the gesture frames draw.
+ *
+ *   mvn -Pbench compile exec:java -Dexec.mainClass=DragFrameCheck -Djava.awt.headless=true
+ */
+public final class DragFrameCheck {
+
+    private static final int WIDTH = 900, HEIGHT = 700, ZOOM = 6, GESTURES = 40, FRAMES_PER_GESTURE = 30;
+
+    public static void main(String[] args) throws Exception {
+        CityOverlay c = BenchFixtures.city();
+        FrameTimes full = run(c, false);
+        FrameTimes adaptive = run(c, true);
+        System.out.printf("every frame at full quality: p95 %.1f ms (%d of %d over budget)%n",
+                full.p95Millis(false), full.overBudget(false), GESTURES * (FRAMES_PER_GESTURE + 1));
+        System.out.println("with gesture frames: " + adaptive.summary());
+    }
+
+    private static FrameTimes run(CityOverlay c, boolean adaptive) {
+        JXMapViewer map = new JXMapViewer();
+        map.setTileFactory(new DefaultTileFactory(
+                new OSMTileFactoryInfo("CartoDB", "https://a.basemaps.cartocdn.com/light_all")));
+        map.setSize(WIDTH, HEIGHT);
+        map.setZoom(ZOOM);
+        map.setAddressLocation(c.center());
+        Painter<JXMapViewer> painter = c.painter();
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        FrameTimes times = new FrameTimes();
+
+        for (int gesture = 0; gesture < GESTURES; gesture++) {
+            int dir = gesture % 2 == 0 ? 1 : -1;
+            for (int f = 0; f < FRAMES_PER_GESTURE; f++) {
+                if (adaptive) c.setInteractive(true);
+                if (f == FRAMES_PER_GESTURE / 2) map.setZoom(map.getZoom() + dir);
+                Point2D center = map.getCenter();
+                map.setCenter(new Point2D.Double(center.getX() + 25 * dir, center.getY() + 10 * dir));
+                times.record(paint(painter, map, image), c.isInteractive());
+            }
+            c.setInteractive(false);
+            times.record(paint(painter, map, image), false);
+        }
+        return times;
+    }
+
+    private static long paint(Painter<JXMapViewer> painter, JXMapViewer map, BufferedImage image) {
+        long start = System.nanoTime();
+        Graphics2D g = image.createGraphics();
+        try {
+            painter.paint(g, map, WIDTH, HEIGHT);
+        } finally {
+            g.dispose();
+        }
+        return System.nanoTime() - start;
+    }
+}
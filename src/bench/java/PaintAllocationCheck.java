@@ -0,0 +1,32 @@
+import bench.Fixtures;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Prints the bytes the UrbEx overlay painters allocate per frame, measured with
+ * the JVM's per-thread allocation counter over the same frames RenderBenchmark
+ * paints. WARM repaints an unchanged view; PAN scrolls back and forth, so
+ * after the first lap every raster tile it needs is cached and only the per-frame
+ * painting is left. RenderBenchmark run with -prof gc reports the same figure as
+ * gc.alloc.rate.norm.
+ *
+ *   mvn -Pbench compile exec:java -Dexec.mainClass=PaintAllocationCheck -Djava.awt.headless=true
+ */
+public final class PaintAllocationCheck {
+
+    private static final int WARMUP_FRAMES = 2_000, FRAMES = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long self = Thread.currentThread().getId();
+        for (Fixtures.Frames frames : new Fixtures.Frames[] {Fixtures.Frames.WARM, Fixtures.Frames.PAN}) {
+            Supplier<Object> frame = new BenchFixtures().renderOverlay(frames);
+            for (int i = 0; i < WARMUP_FRAMES; i++) frame.get();
+            long before = threads.getThreadAllocatedBytes(self);
+            for (int i = 0; i < FRAMES; i++) frame.get();
+            long bytes = threads.getThreadAllocatedBytes(self) - before;
+            System.out.printf("%s: %d bytes allocated per frame%n", frames, bytes / FRAMES);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+import org.jxmapviewer.viewer.util.GeoUtil;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+/**
+ * Clusters synthetic bus-stop layers of growing size, scattered around the
+ * bundled Chicago data's center, and prints per zoom how many markers a
+ * 900x700 view over the center draws and how long the level took to build.
+ * PointClustersTest checks the counts and the grid bound; this only times them.
+ *
+ *   mvn -Pbench compile exec:java -Dexec.mainClass=PointClusterCheck -Djava.awt.headless=true
+ */
+public final class PointClusterCheck {
+
+    private static final int WIDTH = 900, HEIGHT = 700, CELL_PX = 40, MARGIN_PX = 16;
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) throws Exception {
+        TileFactoryInfo info = new OSMTileFactoryInfo("CartoDB", "https://a.basemaps.cartocdn.com/light_all");
+        double centerLat = 41.84, centerLng = -87.68;
+        for (int n : SIZES) {
+            PointClusters clusters = new PointClusters(scatter(n, centerLat, centerLng, new Random(n)), CELL_PX);
+            System.out.printf("%,d stops:%n", n);
+            for (int zoom = info.getMinimumZoomLevel(); zoom <= 12; zoom++) {
+                long t0 = System.nanoTime();
+                PointClusters.Level level = clusters.at(info, zoom);
+                long built = System.nanoTime() - t0;
+                Point2D c = GeoUtil.getBitmapCoordinate(centerLat, centerLng, zoom, info);
+                double minX = c.getX() - WIDTH / 2.0 - MARGIN_PX, maxX = c.getX() + WIDTH / 2.0 + MARGIN_PX;
+                double minY = c.getY() - HEIGHT / 2.0 - MARGIN_PX, maxY = c.getY() + HEIGHT / 2.0 + MARGIN_PX;
+                int inView = 0;
+                for (int i = level.from(minX), end = level.to(maxX); i < end; i++) {
+                    if (level.x[i] >= minX && level.x[i] < maxX && level.y[i] >= minY && level.y[i] < maxY) inView++;
+                }
+                System.out.printf("  zoom %2d: %,9d markers, %,6d in view, built in %6.1f ms%n",
+                        zoom, level.size, inView, built / 1e6);
+            }
+        }
+    }
+
+    /** n points in Gaussian blobs around the center, roughly city-sized. */
+    private static PackedGeometry scatter(int n, double lat, double lng, Random rnd) {
+        double[] coords = new double[n * 2];
+        int[] offsets = new int[n + 1];
+        double[][] blobs = new double[40][];
+        for (int b = 0; b < blobs.length; b++) {
+            blobs[b] = new double[] {lat + rnd.nextGaussian() * 0.08, lng + rnd.nextGaussian() * 0.08};
+        }
+        for (int i = 0; i < n; i++) {
+            double[] blob = blobs[rnd.nextInt(blobs.length)];
+            coords[i * 2] = blob[0] + rnd.nextGaussian() * 0.02;
+            coords[i * 2 + 1] = blob[1] + rnd.nextGaussian() * 0.02;
+            offsets[i + 1] = i + 1;
+        }
+        return new PackedGeometry(coords, offsets);
+    }
+}
@@ -0,0 +1,178 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.viewer.DefaultTileFactory;
+import org.jxmapviewer.viewer.GeoPosition;
+import org.jxmapviewer.viewer.TileFactory;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Measures time-to-full-viewport against a local tile server stub: how long after
+ * a burst of zoom or pan steps every tile in the final view has loaded, with
+ * JXMapViewer's stock 4-thread FIFO factory, with TileScheduler held to the same
+ * 4 loaders, so only the load order differs, and with TileScheduler free to
+ * grow to -Dtiles.maxLoaders. TileSchedulerTest checks the scheduler's behaviour;
+ * this only times it.
+ *
+ * The stub answers every tile after 40-60 ms. The map is painted headless every
+ * 16 ms, as a visible map would be, so each frame asks for its visible tiles.
+ *
+ *   mvn -Pbench compile exec:java -Dexec.mainClass=TileLoadCheck -Djava.awt.headless=true
+ */
+public final class TileLoadCheck {
+
+    private static final int WIDTH = 900, HEIGHT = 700, FRAME_MS = 16;
+    private static final GeoPosition CHICAGO = new GeoPosition(41.84, -87.68);
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private byte[] png;
+
+    public static void main(String[] args) throws Exception {
+        TileLoadCheck check = new TileLoadCheck();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB), "png", out);
+        check.png = out.toByteArray();
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", check::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        TileFactoryInfo info = new OSMTileFactoryInfo("stub", "http://127.0.0.1:" + server.getAddress().getPort());
+
+        try {
+            Function<TileFactoryInfo, TileFactory> fifo = i -> {
+                DefaultTileFactory f = new DefaultTileFactory(i);
+                f.setThreadPoolSize(4);
+                return f;
+            };
+            Function<TileFactoryInfo, TileFactory> scheduled4 = i -> scheduler(i, 4);
+            Function<TileFactoryInfo, TileFactory> adaptive = i -> scheduler(i, 0);
+            for (String scenario : new String[] {"zoom", "pan"}) {
+                long fifoMs = check.run(scenario, info, fifo);
+                int fifoRequests = check.requests.getAndSet(0);
+                long scheduledMs = check.run(scenario, info, scheduled4);
+                int scheduledRequests = check.requests.getAndSet(0);
+                long adaptiveMs = check.run(scenario, info, adaptive);
+                int adaptiveRequests = check.requests.getAndSet(0);
+                System.out.printf("%s burst: FIFO pool (4 loaders) %d ms (%d requests), "
+                                + "scheduler (4 loaders) %d ms (%d requests), "
+                                + "scheduler (adaptive) %d ms (%d requests)%n",
+                        scenario, fifoMs, fifoRequests, scheduledMs, scheduledRequests, adaptiveMs, adaptiveRequests);
+            }
+        } finally {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdownNow();
+        }
+        System.exit(0);
+    }
+
+    /** A TileScheduler on a fresh store; maxLoaders 0 keeps -Dtiles.maxLoaders. */
+    private static TileScheduler scheduler(TileFactoryInfo info, int maxLoaders) {
+        try {
+            TileScheduler s = new TileStore(Files.createTempDirectory("tiles"), 64 << 20, 3_600_000, 64 << 20).factory(info);
+            if (maxLoaders > 0) s.setMaxLoaders(maxLoaders);
+            return s;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Plays a burst of view changes one frame apart, then paints until the final
+     * view is complete; returns the milliseconds from the last change until then.
+     */
+    private long run(String scenario, TileFactoryInfo info, Function<TileFactoryInfo, TileFactory> factories)
+            throws Exception {
+        JXMapViewer map = new JXMapViewer();
+        TileFactory factory = factories.apply(info);
+        if (factory instanceof TileScheduler s) s.watch(map);
+        BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        SwingUtilities.invokeAndWait(() -> {
+            map.setTileFactory(factory);
+            map.setSize(WIDTH, HEIGHT);
+            map.setZoom(scenario.equals("zoom") ? 9 : 5);
+            map.setAddressLocation(CHICAGO);
+        });
+
+        // Zoom: 9 down to 4 around the same point. Pan: six screens east at zoom 5.
+        for (int step = 1; step <= 5; step++) {
+            int s = step;
+            SwingUtilities.invokeAndWait(() -> {
+                if (scenario.equals("zoom")) {
+                    map.setZoom(9 - s);
+                    map.setAddressLocation(CHICAGO);
+                } else {
+                    Point2D c = map.getCenter();
+                    map.setCenter(new Point2D.Double(c.getX() + WIDTH * 1.2, c.getY()));
+                }
+                paint(map, frame);
+            });
+            Thread.sleep(FRAME_MS);
+        }
+
+        long start = System.nanoTime();
+        boolean[] full = {false};
+        while (!full[0]) {
+            SwingUtilities.invokeAndWait(() -> {
+                paint(map, frame);
+                full[0] = viewportLoaded(map);
+            });
+            if (System.nanoTime() - start > 60_000_000_000L) throw new IllegalStateException("viewport never filled");
+            if (!full[0]) Thread.sleep(FRAME_MS);
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        if (factory instanceof TileScheduler s) System.out.println("  " + s.stats());
+        factory.dispose();
+        return ms;
+    }
+
+    private static void paint(JXMapViewer map, BufferedImage frame) {
+        Graphics2D g = frame.createGraphics();
+        try {
+            map.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static boolean viewportLoaded(JXMapViewer map) {
+        TileFactory f = map.getTileFactory();
+        int zoom = map.getZoom(), size = f.getTileSize(zoom);
+        int maxTile = f.getInfo().getMapWidthInTilesAtZoom(zoom) - 1;
+        Rectangle view = map.getViewportBounds();
+        for (int y = Math.max(0, view.y / size); y <= Math.min(maxTile, (view.y + view.height - 1) / size); y++) {
+            for (int x = Math.max(0, view.x / size); x <= Math.min(maxTile, (view.x + view.width - 1) / size); x++) {
+                if (!f.getTile(x, y, zoom).isLoaded()) return false;
+            }
+        }
+        return true;
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        requests.incrementAndGet();
+        try (ex) {
+            Thread.sleep(40 + ThreadLocalRandom.current().nextInt(20));
+            ex.sendResponseHeaders(200, png.length);
+            ex.getResponseBody().write(png);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
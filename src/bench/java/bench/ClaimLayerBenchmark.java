@@ -0,0 +1,34 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/** The UrbEx claim-colour layer painted into an offscreen 900x700 image, batched vs one painter per region. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ClaimLayerBenchmark {
+
+    @Param
+    public Fixtures.ClaimPainter painter;
+
+    @Param
+    public Fixtures.Frames frames;
+
+    private Supplier<Object> frame;
+
+    @Setup
+    public void setup() throws Exception {
+        frame = Fixtures.load().renderClaims(painter, frames);
+    }
+
+    @Benchmark
+    public Object claims() {
+        return frame.get();
+    }
+}
@@ -0,0 +1,75 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The benchmark fixtures, as the benchmarks see them.
+ *
+ * JMH refuses to generate benchmarks for classes in the unnamed package, and the
+ * app classes can't be imported from a named one. So BenchFixtures, which sits
+ * in the unnamed package with the app, implements this interface, and load() is
+ * the only reflective step. Everything past it is checked by the compiler,
+ * including the modes, which are enums that JMH turns into @Param values.
+ */
+public interface Fixtures {
+
+    /** How regionLookup finds the region under a point. */
+    enum Lookup {
+        /** CityOverlay.findRegionAt, through the R-tree. */
+        RTREE,
+        /** findRegionAt as it was before the index: a new screen-space Path2D per region per lookup. */
+        SCREEN_PATH,
+        /** Every region in order, with the even-odd test on its packed geo coordinates. */
+        PACKED
+    }
+
+    /** How gazetteerNearby finds the places in range. */
+    enum Nearby {
+        /** Gazetteer.nearby, through the k-d tree. */
+        KDTREE,
+        /** The haversine over every place. */
+        LINEAR
+    }
+
+    /** What changes between painted frames. */
+    enum Frames {
+        /** Nothing: the same view again. */
+        WARM,
+        /** The cached state is dropped: raster tiles for the overlay, merged claim paths for the claim layer. */
+        COLD,
+        /** The view moves 37 px per frame, back and forth across the city. */
+        PAN
+    }
+
+    /** Which claim-colour layer renderClaims paints. */
+    enum ClaimPainter {
+        /** CityOverlay's layer: merged fills per claim state. */
+        BATCHED,
+        /** The chain it replaced: a CompoundPainter with one culled painter per region. */
+        LAMBDAS
+    }
+
+    Callable<Object> geoJsonLoad();
+
+    Callable<Object> cityPackLoad() throws Exception;
+
+    Supplier<Object> stitchRings(int waySize) throws Exception;
+
+    Supplier<Object> stitchSyntheticRelation(int wayCount);
+
+    DoubleSupplier areaSqMiles() throws Exception;
+
+    Supplier<Object> regionLookup(Lookup index) throws Exception;
+
+    Supplier<Object> gazetteerNearby(Nearby index, int radiusKm) throws Exception;
+
+    Supplier<Object> renderOverlay(Frames frames) throws Exception;
+
+    Supplier<Object> renderClaims(ClaimPainter painter, Frames frames) throws Exception;
+
+    static Fixtures load() throws ReflectiveOperationException {
+        return (Fixtures) Class.forName("BenchFixtures").getDeclaredConstructor().newInstance();
+    }
+}
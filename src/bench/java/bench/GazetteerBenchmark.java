@@ -0,0 +1,35 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/** Offline "towns within N km" queries, through the k-d tree and by a full haversine scan. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GazetteerBenchmark {
+
+    @Param
+    public Fixtures.Nearby index;
+
+    /** 8 km is the default 5 mile game radius. */
+    @Param({"8", "40"})
+    public int radiusKm;
+
+    private Supplier<Object> nearby;
+
+    @Setup
+    public void setup() throws Exception {
+        nearby = Fixtures.load().gazetteerNearby(index, radiusKm);
+    }
+
+    @Benchmark
+    public Object nearby() {
+        return nearby.get();
+    }
+}
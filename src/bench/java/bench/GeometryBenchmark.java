@@ -0,0 +1,85 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/** Ring stitching, area and hit testing over the bundled Chicago regions. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Stitch {
+        /** Vertices per way when the region rings are cut up again. */
+        @Param({"16", "128"})
+        public int waySize;
+        Supplier<Object> run;
+
+        @Setup
+        public void setup() throws Exception {
+            run = Fixtures.load().stitchRings(waySize);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Relation {
+        /** Outer way members of one synthetic relation; it also gets a hole of a quarter as many. */
+        @Param({"1000", "5000"})
+        public int ways;
+        Supplier<Object> run;
+
+        @Setup
+        public void setup() throws Exception {
+            run = Fixtures.load().stitchSyntheticRelation(ways);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Area {
+        DoubleSupplier run;
+
+        @Setup
+        public void setup() throws Exception {
+            run = Fixtures.load().areaSqMiles();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lookup {
+        @Param
+        public Fixtures.Lookup index;
+        Supplier<Object> run;
+
+        @Setup
+        public void setup() throws Exception {
+            run = Fixtures.load().regionLookup(index);
+        }
+    }
+
+    @Benchmark
+    public Object stitchRings(Stitch s) {
+        return s.run.get();
+    }
+
+    @Benchmark
+    public Object stitchSyntheticRelation(Relation s) {
+        return s.run.get();
+    }
+
+    @Benchmark
+    public double computeAreaSqMiles(Area s) {
+        return s.run.getAsDouble();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object findRegionAt(Lookup s) {
+        return s.run.get();
+    }
+}
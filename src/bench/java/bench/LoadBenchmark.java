@@ -0,0 +1,36 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/** Reading the bundled Chicago layers: streaming GeoJSON vs the binary city pack. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+    private Callable<Object> geoJson;
+    private Callable<Object> cityPack;
+
+    @Setup
+    public void setup() throws Exception {
+        Fixtures fixtures = Fixtures.load();
+        geoJson = fixtures.geoJsonLoad();
+        cityPack = fixtures.cityPackLoad();
+    }
+
+    @Benchmark
+    public Object geoJson() throws Exception {
+        return geoJson.call();
+    }
+
+    @Benchmark
+    public Object cityPack() throws Exception {
+        return cityPack.call();
+    }
+}
@@ -0,0 +1,35 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * One full UrbEx overlay frame painted into an offscreen 900x700 image. Run with
+ * -prof gc to see bytes allocated per frame (gc.alloc.rate.norm); PaintAllocationCheck
+ * prints the same without JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    @Param
+    public Fixtures.Frames frames;
+
+    private Supplier<Object> frame;
+
+    @Setup
+    public void setup() throws Exception {
+        frame = Fixtures.load().renderOverlay(frames);
+    }
+
+    @Benchmark
+    public Object overlay() {
+        return frame.get();
+    }
+}
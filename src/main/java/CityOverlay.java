@@ -0,0 +1,477 @@
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.viewer.GeoPosition;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+import org.jxmapviewer.painter.Painter;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * UrbEx's map overlay: the loaded city data, the painters that draw it and the
+ * hit test over it.
+ *
+ * Kept apart from the UrbEx frame so the overlay can be driven without a window,
+ * e.g. painted into an offscreen image by the benchmarks under src/bench.
+ */
+final class CityOverlay {
+
+    final List<UrbEx.TownRegion> regions = new ArrayList<>();
+    final List<UrbEx.TransitLine> transitLines = new ArrayList<>();
+    final List<UrbEx.TransitLine> busLines = new ArrayList<>();
+    PackedGeometry trainStations = PackedGeometry.EMPTY;
+    PackedGeometry busStops = PackedGeometry.EMPTY;
+    private PackedRTree regionIndex;
+
+    boolean showBusLines = true;
+    boolean showTrainStations = true;
+    boolean showBusStops = true;
+
+    private final ViewportCuller culler = new ViewportCuller();
+    // Outlines come from the raster base layer, so the batch only merges the claim fills
+    private final RegionBatch claims = new RegionBatch(CLAIM_FILLS.length,
+            i -> regions.get(i).rings, i -> regions.get(i).claimState, false);
+    private final Path2D.Double outlineBatch = new Path2D.Double(); // reused while rendering base tiles
+    private final ViewportCuller tileCuller = new ViewportCuller();
+    private static final int TILE_CACHE_SIZE = 64; // per layer at least; more for large windows, 256 KB per drawn tile
+    private final RasterLayerCache baseLayer    = new RasterLayerCache(TILE_CACHE_SIZE, this::renderBase);
+    private final RasterLayerCache busLayer     = new RasterLayerCache(TILE_CACHE_SIZE, this::renderBusLines);
+    private final RasterLayerCache stationLayer = new RasterLayerCache(TILE_CACHE_SIZE, this::renderStations);
+    private final RasterLayerCache busStopLayer = new RasterLayerCache(TILE_CACHE_SIZE, this::renderBusStops);
+    static final int CULL_MARGIN_PX = 8; // widest stroke / station marker radius, with slack
+    // Stations and stops merge into count markers within a grid of this cell size once zoomed out
+    private static final int CLUSTER_CELL_PX = 40;
+    private static final int CLUSTER_MAX_RADIUS_PX = 14;
+    private static final int CLUSTER_MARGIN_PX = CLUSTER_MAX_RADIUS_PX + 2;
+    private PointClusters stationClusters = new PointClusters(PackedGeometry.EMPTY, CLUSTER_CELL_PX);
+    private PointClusters busStopClusters = new PointClusters(PackedGeometry.EMPTY, CLUSTER_CELL_PX);
+
+    // Paint state shared by every frame and tile, so painting allocates none of it
+    private static final Color[] CLAIM_FILLS = {  // by claimState: unclaimed, team 1, team 2
+            new Color(200, 200, 255, 60), new Color(0, 255, 0, 80), new Color(255, 0, 0, 80)};
+    private static final BasicStroke OUTLINE_STROKE = new BasicStroke(1.5f);
+    private static final BasicStroke SUBWAY_STROKE = new BasicStroke(3f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final BasicStroke BUS_STROKE = new BasicStroke(1.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final int BUS_ALPHA = 160;
+    private static final Color STATION_RING = new Color(40, 40, 40);
+    private static final Color BUS_STOP_FILL = new Color(30, 144, 255, 180);
+    private static final Color BUS_STOP_CLUSTER_FILL = new Color(30, 144, 255, 220);
+    private static final Font CLUSTER_FONT = new Font("SansSerif", Font.BOLD, 10);
+    private static final boolean SHOW_FRAME_STATS = Boolean.getBoolean("urbex.stats");
+
+    /**
+     * Builds levels of detail, region metrics and the region index; call once the
+     * data is loaded. A failure here fails the load: the map needs every region's
+     * metrics.
+     */
+    void prepare() throws Exception {
+        UrbEx.timed("levels of detail", () -> {
+            for (UrbEx.TownRegion r : regions) {
+                r.rings.buildLevelsOfDetail(false);
+                r.metrics = RegionMetrics.of(r.rings);
+            }
+            for (UrbEx.TransitLine l : transitLines) l.segments.buildLevelsOfDetail(true);
+            transitLines.sort(Comparator.comparingInt(l -> l.color.getRGB()));
+            for (UrbEx.TransitLine l : busLines) l.segments.buildLevelsOfDetail(true);
+            for (UrbEx.TransitLine l : busLines) l.paintColor = busColor(l.color);
+        });
+        regionIndex = PackedRTree.build(regions.stream().map(r -> r.rings).toList());
+    }
+
+    /** Average of all region vertices, or downtown Chicago if nothing is loaded. */
+    GeoPosition center() {
+        double sumLat = 0, sumLng = 0;
+        int vertexCount = 0;
+        for (UrbEx.TownRegion r : regions) {
+            sumLat += r.rings.sumLat;
+            sumLng += r.rings.sumLng;
+            vertexCount += r.rings.vertexCount();
+        }
+        if (vertexCount == 0) return new GeoPosition(41.8827, -87.6233);
+        return new GeoPosition(sumLat / vertexCount, sumLng / vertexCount);
+    }
+
+    /** minLat, minLng, maxLat, maxLng over every region. */
+    double[] bounds() {
+        double[] b = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (UrbEx.TownRegion r : regions) {
+            b[0] = Math.min(b[0], r.rings.minLat);
+            b[1] = Math.min(b[1], r.rings.minLng);
+            b[2] = Math.max(b[2], r.rings.maxLat);
+            b[3] = Math.max(b[3], r.rings.maxLng);
+        }
+        return b;
+    }
+
+    // ── Late layers ──────────────────────────────────────────────────────────
+    // Transit layers load alongside the window; each is handed over on the EDT when
+    // ready and its cached tiles, rendered blank until now, are dropped.
+
+    void addBusLines(List<UrbEx.TransitLine> lines) {
+        for (UrbEx.TransitLine l : lines) l.paintColor = busColor(l.color);
+        busLines.addAll(lines);
+        busLayer.invalidate();
+    }
+
+    /** Bus routes are drawn in their route colour, partly see-through. */
+    private static Color busColor(Color route) {
+        return new Color(route.getRed(), route.getGreen(), route.getBlue(), BUS_ALPHA);
+    }
+
+    void setTrainStations(PackedGeometry points) {
+        trainStations = points;
+        stationLayer.invalidate();
+    }
+
+    void setBusStops(PackedGeometry points) {
+        busStops = points;
+        busStopLayer.invalidate();
+    }
+
+    // ── Painter ──────────────────────────────────────────────────────────────
+
+    /**
+     * The whole overlay as one painter. Each layer is a handful of draw calls: the
+     * claim colours are one fill per claim state (see RegionBatch), the rest are
+     * cached raster tiles composited in order. During a gesture the last full frame
+     * stands in for all of them (see setInteractive).
+     */
+    Painter<JXMapViewer> painter() {
+        return (g2, map, w, h) -> {
+            if (!interactive || !paintSnapshot(g2, map, w, h)) paintLayers(g2, map, false);
+
+            if (SHOW_FRAME_STATS) {
+                g2.setColor(Color.BLACK);
+                g2.drawString("drawn " + culler.drawn + " / culled " + culler.culled + ", tiles rendered "
+                        + (baseLayer.tilesRendered + busLayer.tilesRendered
+                           + stationLayer.tilesRendered + busStopLayer.tilesRendered), 8, 16);
+                g2.drawString(TileStore.shared().stats(), 8, 30);
+                if (map.getTileFactory() instanceof TileScheduler tiles) g2.drawString(tiles.stats(), 8, 44);
+                g2.drawString(frameTimes.summary(), 8, 58);
+            }
+        };
+    }
+
+    /** Every layer in order; with cachedOnly, raster tiles not rendered yet are left out. */
+    private void paintLayers(Graphics2D g2, JXMapViewer map, boolean cachedOnly) {
+        paintClaims(g2, map);
+        // Static base layer: region outlines and subway lines
+        baseLayer.paint(g2, map, cachedOnly);
+        // Bus routes, stations and stops never change during a game either
+        if (showBusLines)      busLayer.paint(g2, map, cachedOnly);
+        if (showTrainStations) stationLayer.paint(g2, map, cachedOnly);
+        if (showBusStops)      busStopLayer.paint(g2, map, cachedOnly);
+    }
+
+    // ── Interaction ──────────────────────────────────────────────────────────
+    //
+    // While the user drags or wheel-zooms, each frame draws one image for most of
+    // the view: a snapshot of the overlay at full quality, taken on the gesture's
+    // first frame and shifted (and scaled, after a zoom) to the current view. Areas
+    // the snapshot no longer covers get the claim fills and whatever raster tiles
+    // are already cached; only tiles that would need rendering are left out until
+    // the gesture goes idle and setInteractive(false) brings back a full repaint.
+
+    private static final int SNAPSHOT_MAX_ZOOM_STEPS = 2; // beyond this a scaled snapshot is too blurry or small
+    final FrameTimes frameTimes = new FrameTimes();
+    private boolean interactive;
+    private BufferedImage snapshot;
+    private boolean snapshotValid;
+    private int snapshotX, snapshotY, snapshotZoom, snapshotWidth, snapshotHeight;
+
+    /** Switches the cheap gesture frames on or off; off drops the snapshot, so repaint afterwards. */
+    void setInteractive(boolean on) {
+        interactive = on;
+        if (!on) snapshotValid = false;
+    }
+
+    boolean isInteractive() {
+        return interactive;
+    }
+
+    /** Draws the snapshot moved to the current view, taking it first if needed; false if it cannot stand in. */
+    private boolean paintSnapshot(Graphics2D g2, JXMapViewer map, int w, int h) {
+        if (!snapshotValid) takeSnapshot(g2, map, w, h);
+        int zoomSteps = snapshotZoom - map.getZoom();
+        if (Math.abs(zoomSteps) > SNAPSHOT_MAX_ZOOM_STEPS) return false;
+        // World pixels scale by exactly 2 per zoom level
+        double f = Math.scalb(1.0, zoomSteps);
+        Rectangle viewport = map.getViewportBounds();
+        int sx = (int) Math.round(snapshotX * f - viewport.x), sy = (int) Math.round(snapshotY * f - viewport.y);
+        int sw = (int) Math.round(snapshotWidth * f), sh = (int) Math.round(snapshotHeight * f);
+        g2.drawImage(snapshot, sx, sy, sw, sh, null);
+        paintUncovered(g2, map, w, h, sx, sy, sw, sh);
+        return true;
+    }
+
+    /** Paints the view outside the snapshot's rectangle, as up to four strips, from cached tiles only. */
+    private void paintUncovered(Graphics2D g2, JXMapViewer map, int w, int h, int sx, int sy, int sw, int sh) {
+        int left = Math.max(0, Math.min(w, sx)), right = Math.max(0, Math.min(w, sx + sw));
+        int top = Math.max(0, Math.min(h, sy)), bottom = Math.max(0, Math.min(h, sy + sh));
+        Rectangle clip = g2.getClipBounds();
+        paintStrip(g2, map, clip, 0, 0, w, top);
+        paintStrip(g2, map, clip, 0, bottom, w, h - bottom);
+        paintStrip(g2, map, clip, 0, top, left, bottom - top);
+        paintStrip(g2, map, clip, right, top, w - right, bottom - top);
+        g2.setClip(clip);
+    }
+
+    private void paintStrip(Graphics2D g2, JXMapViewer map, Rectangle clip, int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0 || (clip != null && !clip.intersects(x, y, w, h))) return;
+        g2.setClip(clip);
+        g2.clipRect(x, y, w, h);
+        paintLayers(g2, map, true);
+    }
+
+    private void takeSnapshot(Graphics2D g2, JXMapViewer map, int w, int h) {
+        double scale = g2.getTransform().getScaleX(); // device pixels, as RasterLayerCache renders
+        int pw = (int) Math.ceil(w * scale), ph = (int) Math.ceil(h * scale);
+        if (snapshot == null || snapshot.getWidth() != pw || snapshot.getHeight() != ph) {
+            snapshot = new BufferedImage(pw, ph, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D sg = snapshot.createGraphics();
+        try {
+            sg.setComposite(AlphaComposite.Clear);
+            sg.fillRect(0, 0, pw, ph);
+            sg.setComposite(AlphaComposite.SrcOver);
+            sg.setRenderingHints(g2.getRenderingHints());
+            sg.scale(scale, scale);
+            paintLayers(sg, map, false);
+        } finally {
+            sg.dispose();
+        }
+        Rectangle viewport = map.getViewportBounds();
+        snapshotX = viewport.x;
+        snapshotY = viewport.y;
+        snapshotZoom = map.getZoom();
+        snapshotWidth = w;
+        snapshotHeight = h;
+        snapshotValid = true;
+    }
+
+    /**
+     * Claim-colour layer, the only part of the overlay that changes during a game.
+     * Painted first, so it also starts the frame: snapshots the visible (dirty)
+     * bounds and resets the counters.
+     */
+    void paintClaims(Graphics2D g2, JXMapViewer map) {
+        culler.begin(map, g2.getClipBounds(), CULL_MARGIN_PX);
+        claims.update(map.getTileFactory().getInfo(), map.getZoom(), regions.size());
+        // Antialiased translucent fills take Java2D's mask pipeline; aliased ones a per-fill raster
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.translate(-culler.viewX, -culler.viewY);
+        for (int state = 0; state < claims.groups(); state++) {
+            g2.setColor(CLAIM_FILLS[state]);
+            for (int chunk = 0; chunk < claims.chunks(); chunk++) {
+                if (culler.visible(claims.fillBounds(state, chunk))) g2.fill(claims.fill(state, chunk));
+            }
+        }
+        g2.translate(culler.viewX, culler.viewY);
+        if (antialiasing != null) g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+    }
+
+    /** Call after a region's claimState changed, before repainting it. */
+    void claimChanged(UrbEx.TownRegion region) {
+        claims.moved(regions.indexOf(region));
+        snapshotValid = false;
+    }
+
+    /** Call after many regions' claimState changed at once. */
+    void claimsChanged() {
+        claims.invalidate();
+        snapshotValid = false;
+    }
+
+    /** Drops every cached raster tile so the next paint re-renders the static layers. */
+    void invalidateLayers() {
+        baseLayer.invalidate();
+        busLayer.invalidate();
+        stationLayer.invalidate();
+        busStopLayer.invalidate();
+    }
+
+    // ── Static layers (rendered once per tile and zoom) ──────────────────────
+
+    private boolean renderBase(Graphics2D g2, Rectangle tile, int zoom, TileFactoryInfo info) {
+        tileCuller.begin(tile, zoom, info, CULL_MARGIN_PX);
+        // Every outline in the tile in one stroke
+        outlineBatch.reset();
+        for (UrbEx.TownRegion region : regions) {
+            if (tileCuller.visible(region.rings)) outlineBatch.append(region.rings.worldPath(info, zoom, true), false);
+        }
+        g2.setColor(Color.DARK_GRAY);
+        g2.setStroke(OUTLINE_STROKE);
+        g2.draw(outlineBatch);
+
+        // Subway lines one stroke per colour (lines are kept sorted by colour)
+        g2.setStroke(SUBWAY_STROKE);
+        outlineBatch.reset();
+        Color batchColor = null;
+        for (UrbEx.TransitLine line : transitLines) {
+            if (!tileCuller.visible(line.segments)) continue;
+            if (!line.color.equals(batchColor)) {
+                if (batchColor != null) g2.draw(outlineBatch);
+                outlineBatch.reset();
+                batchColor = line.color;
+                g2.setColor(batchColor);
+            }
+            outlineBatch.append(line.segments.worldPath(info, zoom, false), false);
+        }
+        if (batchColor != null) g2.draw(outlineBatch);
+        return tileCuller.drawn > 0;
+    }
+
+    private boolean renderBusLines(Graphics2D g2, Rectangle tile, int zoom, TileFactoryInfo info) {
+        tileCuller.begin(tile, zoom, info, CULL_MARGIN_PX);
+        g2.setStroke(BUS_STROKE);
+        for (UrbEx.TransitLine line : busLines) {
+            if (!tileCuller.visible(line.segments)) continue;
+            g2.setColor(line.paintColor);
+            g2.draw(line.segments.worldPath(info, zoom, false));
+        }
+        return tileCuller.drawn > 0;
+    }
+
+    private boolean renderStations(Graphics2D g2, Rectangle tile, int zoom, TileFactoryInfo info) {
+        if (stationClusters.points() != trainStations) stationClusters = new PointClusters(trainStations, CLUSTER_CELL_PX);
+        PointClusters.Level level = stationClusters.at(info, zoom);
+        tileCuller.begin(tile, zoom, info, CLUSTER_MARGIN_PX);
+        int end = level.to(tile.getMaxX() + CLUSTER_MARGIN_PX);
+        for (int i = level.from(tile.getMinX() - CLUSTER_MARGIN_PX); i < end; i++) {
+            if (!tileCuller.visible(level.x[i], level.y[i])) continue;
+            int x = (int) level.x[i], y = (int) level.y[i];
+            if (level.count[i] > 1) {
+                paintCluster(g2, x, y, level.count[i], STATION_RING);
+                continue;
+            }
+            g2.setColor(STATION_RING);
+            g2.fillOval(x - 5, y - 5, 10, 10);
+            g2.setColor(Color.WHITE);
+            g2.fillOval(x - 3, y - 3, 6, 6);
+        }
+        return tileCuller.drawn > 0;
+    }
+
+    private boolean renderBusStops(Graphics2D g2, Rectangle tile, int zoom, TileFactoryInfo info) {
+        if (busStopClusters.points() != busStops) busStopClusters = new PointClusters(busStops, CLUSTER_CELL_PX);
+        PointClusters.Level level = busStopClusters.at(info, zoom);
+        tileCuller.begin(tile, zoom, info, CLUSTER_MARGIN_PX);
+        int end = level.to(tile.getMaxX() + CLUSTER_MARGIN_PX);
+        for (int i = level.from(tile.getMinX() - CLUSTER_MARGIN_PX); i < end; i++) {
+            if (!tileCuller.visible(level.x[i], level.y[i])) continue;
+            int x = (int) level.x[i], y = (int) level.y[i];
+            if (level.count[i] > 1) {
+                paintCluster(g2, x, y, level.count[i], BUS_STOP_CLUSTER_FILL);
+                continue;
+            }
+            g2.setColor(BUS_STOP_FILL);
+            g2.fillOval(x - 2, y - 2, 4, 4);
+        }
+        return tileCuller.drawn > 0;
+    }
+
+    /** A disc sized by the order of magnitude of count, with the count on it. */
+    private static void paintCluster(Graphics2D g2, int x, int y, int count, Color fill) {
+        int r = count < 10 ? 8 : count < 100 ? 10 : count < 1000 ? 12 : CLUSTER_MAX_RADIUS_PX;
+        Object aa = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(fill);
+        g2.fillOval(x - r, y - r, 2 * r, 2 * r);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, aa);
+        String label = Integer.toString(count);
+        g2.setFont(CLUSTER_FONT);
+        FontMetrics fm = g2.getFontMetrics();
+        g2.setColor(Color.WHITE);
+        g2.drawString(label, x - fm.stringWidth(label) / 2, y + (fm.getAscent() - fm.getDescent()) / 2);
+    }
+
+    /**
+     * Per-frame visibility test against a world-pixel area (the repainted part of the
+     * viewport, or one raster tile). Feature bounding boxes are compared in geo coordinates, points
+     * in world pixels. Counts drawn vs culled features since the last begin().
+     */
+    static final class ViewportCuller {
+        private final Rectangle world = new Rectangle();
+        private double south, west, north, east;
+        int drawn, culled;
+        // World-pixel origin of the map viewport, for painters that shift cached world paths onto the screen
+        int viewX, viewY;
+
+        /** Starts a frame limited to the part of the viewport inside clip (screen coordinates, may be null). */
+        void begin(JXMapViewer map, Rectangle clip, int marginPx) {
+            Rectangle viewport = map.getViewportBounds();
+            viewX = viewport.x;
+            viewY = viewport.y;
+            if (clip != null) {
+                int x0 = Math.max(viewport.x, viewport.x + clip.x), y0 = Math.max(viewport.y, viewport.y + clip.y);
+                int x1 = Math.min(viewport.x + viewport.width, viewport.x + clip.x + clip.width);
+                int y1 = Math.min(viewport.y + viewport.height, viewport.y + clip.y + clip.height);
+                viewport.setBounds(x0, y0, x1 - x0, y1 - y0);
+            }
+            begin(viewport, map.getZoom(), map.getTileFactory().getInfo(), marginPx);
+        }
+
+        void begin(Rectangle area, int zoom, TileFactoryInfo info, int marginPx) {
+            world.setBounds(area.x - marginPx, area.y - marginPx,
+                    area.width + 2 * marginPx, area.height + 2 * marginPx);
+            // GeoUtil.getPosition inlined: the inverse projection without a GeoPosition per corner
+            Point2D center = info.getMapCenterInPixelsAtZoom(zoom);
+            double degreeWidth = info.getLongitudeDegreeWidthInPixels(zoom);
+            double radianWidth = info.getLongitudeRadianWidthInPixels(zoom);
+            west  = (world.getMinX() - center.getX()) / degreeWidth;
+            east  = (world.getMaxX() - center.getX()) / degreeWidth;
+            north = Math.toDegrees(2 * Math.atan(Math.exp((world.getMinY() - center.getY()) / -radianWidth)) - Math.PI / 2);
+            south = Math.toDegrees(2 * Math.atan(Math.exp((world.getMaxY() - center.getY()) / -radianWidth)) - Math.PI / 2);
+            drawn = 0;
+            culled = 0;
+        }
+
+        boolean visible(PackedGeometry g) {
+            return count(g.intersects(south, west, north, east));
+        }
+
+        boolean visible(Rectangle2D worldBounds) {
+            return count(worldBounds.intersects(world));
+        }
+
+        boolean visible(double worldX, double worldY) {
+            return count(world.contains(worldX, worldY));
+        }
+
+        private boolean count(boolean visible) {
+            if (visible) drawn++;
+            else culled++;
+            return visible;
+        }
+    }
+
+    // ── Hit testing ──────────────────────────────────────────────────────────
+
+    /**
+     * Looks up the R-tree for regions whose bounding box holds the point, then runs
+     * a point-in-polygon test on their geo coordinates. Ties go to the earliest region.
+     */
+    UrbEx.TownRegion findRegionAt(GeoPosition clicked) {
+        double lat = clicked.getLatitude(), lng = clicked.getLongitude();
+        int[] best = {Integer.MAX_VALUE};
+        regionIndex.search(lat, lng, i -> {
+            if (i < best[0] && regions.get(i).rings.contains(lat, lng)) best[0] = i;
+        });
+        return best[0] == Integer.MAX_VALUE ? null : regions.get(best[0]);
+    }
+
+    /** Screen rectangle covered by a region at the map's current zoom, padded for its outline. */
+    Rectangle screenBounds(UrbEx.TownRegion region, JXMapViewer map) {
+        Rectangle bounds = region.rings.worldPath(map.getTileFactory().getInfo(), map.getZoom(), true).getBounds();
+        Rectangle viewport = map.getViewportBounds();
+        bounds.translate(-viewport.x, -viewport.y);
+        bounds.grow(CULL_MARGIN_PX, CULL_MARGIN_PX);
+        return bounds;
+    }
+}
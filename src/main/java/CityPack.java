@@ -0,0 +1,205 @@
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Preprocessed binary "city pack" for UrbEx.
+ *
+ * Holds everything UrbEx reads from the <city>.geojson, <city>_buses.geojson,
+ * <city>_stations.geojson and <city>_bus_stops.geojson files, with coordinates
+ * quantized to 1e-7 degrees (the precision OSM stores). The file is opened with
+ * FileChannel.map, so loading is a straight walk over the mapped buffer.
+ *
+ * Build one with:  mvn exec:java -Dexec.mainClass=CityPack -Dexec.args=chicago
+ *
+ * Layout (big-endian):
+ *   int magic, int version
+ *   int regionCount,  then per region:  utf name, int population, parts
+ *   int subwayCount,  then per line:    int argb, parts
+ *   int busCount,     then per line:    int argb, parts
+ *   int stationCount, int[] lat/lng pairs
+ *   int stopCount,    int[] lat/lng pairs
+ * where "parts" is int partCount, int[partCount + 1] vertex offsets, int[] lat/lng pairs
+ * and "utf" is a short byte length followed by UTF-8 bytes.
+ */
+final class CityPack {
+
+    static final int MAGIC   = 0x53535043; // "SSPC"
+    static final int VERSION = 1;
+    static final double SCALE = 1e7;
+
+    private CityPack() {}
+
+    // ── Converter ────────────────────────────────────────────────────────────
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: CityPack <city> [dataDir]");
+            System.exit(2);
+        }
+        String city = args[0].toLowerCase();
+        String dir  = args.length > 1 ? args[1] : "data";
+
+        List<UrbEx.TownRegion> regions = new ArrayList<>();
+        List<UrbEx.TransitLine> subway = new ArrayList<>();
+        List<UrbEx.TransitLine> bus = new ArrayList<>();
+
+        UrbEx.loadFromGeoJson(dir + "/" + city + ".geojson", regions, subway);
+        UrbEx.loadBusLines(dir + "/" + city + "_buses.geojson", bus);
+        PackedGeometry stations = UrbEx.loadPoints(dir + "/" + city + "_stations.geojson");
+        PackedGeometry stops = UrbEx.loadPoints(dir + "/" + city + "_bus_stops.geojson");
+
+        Path out = Paths.get(dir, city + ".pack");
+        write(out, regions, subway, bus, stations, stops);
+        System.out.printf("Wrote %s: %d regions, %d subway lines, %d bus lines, %d stations, %d stops (%d bytes)%n",
+                out, regions.size(), subway.size(), bus.size(), stations.vertexCount(), stops.vertexCount(), Files.size(out));
+    }
+
+    /** True if the pack exists and is at least as new as every source GeoJSON file it was built from. */
+    static boolean isFresh(Path pack, String dir, String city) throws IOException {
+        if (!Files.exists(pack)) return false;
+        long packTime = Files.getLastModifiedTime(pack).toMillis();
+        for (String suffix : new String[] {".geojson", "_buses.geojson", "_stations.geojson", "_bus_stops.geojson"}) {
+            Path src = Paths.get(dir, city + suffix);
+            if (Files.exists(src) && Files.getLastModifiedTime(src).toMillis() > packTime) return false;
+        }
+        return true;
+    }
+
+    // ── Writer ───────────────────────────────────────────────────────────────
+
+    static void write(Path out, List<UrbEx.TownRegion> regions, List<UrbEx.TransitLine> subway,
+                      List<UrbEx.TransitLine> bus, PackedGeometry stations, PackedGeometry stops) throws IOException {
+        Path tmp = out.resolveSibling(out.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp);
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+
+            data.writeInt(regions.size());
+            for (UrbEx.TownRegion r : regions) {
+                writeUtf(data, r.name);
+                data.writeInt(r.population);
+                writeParts(data, r.rings);
+            }
+            writeLines(data, subway);
+            writeLines(data, bus);
+            writePoints(data, stations);
+            writePoints(data, stops);
+        }
+        Files.move(tmp, out, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeLines(DataOutputStream data, List<UrbEx.TransitLine> lines) throws IOException {
+        data.writeInt(lines.size());
+        for (UrbEx.TransitLine line : lines) {
+            data.writeInt(line.color.getRGB());
+            writeParts(data, line.segments);
+        }
+    }
+
+    private static void writeParts(DataOutputStream data, PackedGeometry g) throws IOException {
+        data.writeInt(g.partCount());
+        for (int p = 0; p <= g.partCount(); p++) data.writeInt(p < g.partCount() ? g.partStart(p) : g.vertexCount());
+        writeCoords(data, g);
+    }
+
+    private static void writePoints(DataOutputStream data, PackedGeometry points) throws IOException {
+        data.writeInt(points.vertexCount());
+        writeCoords(data, points);
+    }
+
+    private static void writeCoords(DataOutputStream data, PackedGeometry g) throws IOException {
+        for (int v = 0; v < g.vertexCount(); v++) {
+            data.writeInt((int) Math.round(g.lat(v) * SCALE));
+            data.writeInt((int) Math.round(g.lng(v) * SCALE));
+        }
+    }
+
+    private static void writeUtf(DataOutputStream data, String s) throws IOException {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        data.writeShort(bytes.length);
+        data.write(bytes);
+    }
+
+    // ── Reader ───────────────────────────────────────────────────────────────
+
+    /**
+     * Reads a pack into the given region and line lists.
+     * Returns the station and bus-stop point layers, in that order.
+     */
+    static PackedGeometry[] read(Path pack, List<UrbEx.TownRegion> regions, List<UrbEx.TransitLine> subway,
+                                 List<UrbEx.TransitLine> bus) throws IOException {
+        try (FileChannel ch = FileChannel.open(pack, StandardOpenOption.READ)) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt() != MAGIC) throw new IOException(pack + " is not a city pack");
+            int version = buf.getInt();
+            if (version != VERSION) throw new IOException(pack + " has unsupported version " + version);
+
+            int regionCount = buf.getInt();
+            for (int i = 0; i < regionCount; i++) {
+                UrbEx.TownRegion r = new UrbEx.TownRegion();
+                r.name = readUtf(buf);
+                r.population = buf.getInt();
+                r.rings = readParts(buf);
+                regions.add(r);
+            }
+            readLines(buf, subway);
+            readLines(buf, bus);
+            PackedGeometry stations = readPoints(buf);
+            PackedGeometry stops = readPoints(buf);
+            return new PackedGeometry[] {stations, stops};
+        }
+    }
+
+    private static void readLines(ByteBuffer buf, List<UrbEx.TransitLine> out) {
+        int count = buf.getInt();
+        for (int i = 0; i < count; i++) {
+            UrbEx.TransitLine line = new UrbEx.TransitLine();
+            line.color = new Color(buf.getInt(), true);
+            line.segments = readParts(buf);
+            out.add(line);
+        }
+    }
+
+    private static PackedGeometry readParts(ByteBuffer buf) {
+        int partCount = buf.getInt();
+        int[] offsets = new int[partCount + 1];
+        buf.asIntBuffer().get(offsets);
+        buf.position(buf.position() + offsets.length * Integer.BYTES);
+        return new PackedGeometry(readCoords(buf, offsets[partCount]), offsets);
+    }
+
+    private static PackedGeometry readPoints(ByteBuffer buf) {
+        int count = buf.getInt();
+        return new PackedGeometry(readCoords(buf, count), new int[] {0, count});
+    }
+
+    /** Dequantizes count lat/lng pairs straight from the mapped buffer. */
+    private static double[] readCoords(ByteBuffer buf, int count) {
+        IntBuffer ints = buf.asIntBuffer();
+        double[] coords = new double[count * 2];
+        for (int i = 0; i < coords.length; i++) coords[i] = ints.get(i) / SCALE;
+        buf.position(buf.position() + coords.length * Integer.BYTES);
+        return coords;
+    }
+
+    private static String readUtf(ByteBuffer buf) {
+        int len = buf.getShort() & 0xFFFF;
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
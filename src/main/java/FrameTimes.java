@@ -0,0 +1,44 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Recent map frame times, kept apart for frames painted during a pan or zoom
+ * gesture and full-quality frames, so the interactive ones can be checked
+ * against the frame budget. Only touched from the EDT.
+ */
+final class FrameTimes {
+
+    static final double BUDGET_MS = 16.7; // one frame at 60 Hz
+    private static final int WINDOW = 120;
+
+    private final long[][] samples = new long[2][WINDOW];
+    private final int[] counts = new int[2];
+    private final int[] overBudget = new int[2];
+    private final long[] sorted = new long[WINDOW];
+
+    void record(long nanos, boolean interactive) {
+        int k = interactive ? 1 : 0;
+        samples[k][counts[k] % WINDOW] = nanos;
+        counts[k]++;
+        if (nanos > BUDGET_MS * 1e6) overBudget[k]++;
+    }
+
+    /** 95th percentile of the last WINDOW frames of one kind, in milliseconds; 0 if none yet. */
+    double p95Millis(boolean interactive) {
+        int k = interactive ? 1 : 0, n = Math.min(counts[k], WINDOW);
+        if (n == 0) return 0;
+        System.arraycopy(samples[k], 0, sorted, 0, n);
+        Arrays.sort(sorted, 0, n);
+        return sorted[Math.min(n - 1, (int) Math.ceil(n * 0.95) - 1)] / 1e6;
+    }
+
+    /** Frames of one kind that took longer than BUDGET_MS, since startup. */
+    int overBudget(boolean interactive) {
+        return overBudget[interactive ? 1 : 0];
+    }
+
+    String summary() {
+        return String.format(Locale.ROOT, "gesture frames p95 %.1f ms (%d of %d over %.1f ms), full frames p95 %.1f ms",
+                p95Millis(true), overBudget[1], counts[1], BUDGET_MS, p95Millis(false));
+    }
+}
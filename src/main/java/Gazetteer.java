@@ -0,0 +1,200 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Offline stand-in for GeoNames search and findNearbyPlaceName, read from a
+ * GeoNames dump (cities1000.txt, or a per-country file such as US.txt).
+ *
+ * Places are held in parallel primitive arrays and indexed two ways: a
+ * PointKdTree on lat/lng for radius queries, and a map from lower-cased name
+ * (and ASCII name) to place ids for geocoding. A place's id is its row in the
+ * file, counting only rows that parsed.
+ */
+final class Gazetteer {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    // Columns of the tab-separated "geoname" table (see the dump's readme.txt)
+    private static final int NAME = 1, ASCII_NAME = 2, LAT = 4, LNG = 5, COUNTRY = 8, ADMIN1 = 10, POPULATION = 14;
+
+    private final String[] names;
+    private final String[] countries;
+    private final String[] admin1s;
+    private final double[] lats;
+    private final double[] lngs;
+    private final int[] populations;
+    private final Map<String, int[]> byName;
+    private final PointKdTree tree;
+
+    private Gazetteer(String[] names, String[] countries, String[] admin1s, double[] lats, double[] lngs,
+                      int[] populations, Map<String, int[]> byName) {
+        this.names = names;
+        this.countries = countries;
+        this.admin1s = admin1s;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.populations = populations;
+        this.byName = byName;
+        this.tree = PointKdTree.build(lats, lngs, lats.length);
+    }
+
+    static Gazetteer load(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    /** Reads dump rows until the end of in; malformed rows are skipped. */
+    static Gazetteer read(BufferedReader in) throws IOException {
+        int capacity = 1024, n = 0;
+        String[] names = new String[capacity], countries = new String[capacity], admin1s = new String[capacity];
+        double[] lats = new double[capacity], lngs = new double[capacity];
+        int[] populations = new int[capacity];
+        Map<String, int[]> byName = new HashMap<>();
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] cols = line.split("\t", -1);
+            if (cols.length <= POPULATION) continue;
+            double lat, lng;
+            try {
+                lat = Double.parseDouble(cols[LAT]);
+                lng = Double.parseDouble(cols[LNG]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (n == capacity) {
+                capacity *= 2;
+                names = Arrays.copyOf(names, capacity);
+                countries = Arrays.copyOf(countries, capacity);
+                admin1s = Arrays.copyOf(admin1s, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lngs = Arrays.copyOf(lngs, capacity);
+                populations = Arrays.copyOf(populations, capacity);
+            }
+            names[n] = cols[NAME];
+            countries[n] = cols[COUNTRY].intern();
+            admin1s[n] = cols[ADMIN1].intern();
+            lats[n] = lat;
+            lngs[n] = lng;
+            populations[n] = parsePopulation(cols[POPULATION]);
+            index(byName, cols[NAME], n);
+            if (!cols[ASCII_NAME].equalsIgnoreCase(cols[NAME])) index(byName, cols[ASCII_NAME], n);
+            n++;
+        }
+        return new Gazetteer(Arrays.copyOf(names, n), Arrays.copyOf(countries, n), Arrays.copyOf(admin1s, n),
+                Arrays.copyOf(lats, n), Arrays.copyOf(lngs, n), Arrays.copyOf(populations, n), byName);
+    }
+
+    private static void index(Map<String, int[]> byName, String name, int id) {
+        if (name.isEmpty()) return;
+        byName.merge(name.toLowerCase(Locale.ROOT), new int[] {id}, (ids, one) -> {
+            int[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = one[0];
+            return grown;
+        });
+    }
+
+    private static int parsePopulation(String text) {
+        try {
+            return (int) Math.min(Integer.MAX_VALUE, Long.parseLong(text.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // ── Places ───────────────────────────────────────────────────────────────
+
+    int size()               { return lats.length; }
+    String name(int id)      { return names[id]; }
+    String country(int id)   { return countries[id]; }
+    String admin1(int id)    { return admin1s[id]; }
+    double lat(int id)       { return lats[id]; }
+    double lng(int id)       { return lngs[id]; }
+    int population(int id)   { return populations[id]; }
+
+    /** Whether the place is in country and first-level division admin1; null matches any. */
+    boolean in(int id, String country, String admin1) {
+        return (country == null || country.equalsIgnoreCase(countries[id]))
+                && (admin1 == null || admin1.equalsIgnoreCase(admin1s[id]));
+    }
+
+    // ── Queries ──────────────────────────────────────────────────────────────
+
+    /**
+     * Geocodes a place name (case-insensitive, name or ASCII name) within country
+     * and admin1, either of which may be null. Of several matches the most
+     * populous wins, as GeoNames ranks them. Returns -1 when nothing matches.
+     */
+    int find(String name, String country, String admin1) {
+        int[] ids = byName.get(name.trim().toLowerCase(Locale.ROOT));
+        if (ids == null) return -1;
+        int best = -1;
+        for (int id : ids) {
+            if (in(id, country, admin1) && (best < 0 || populations[id] > populations[best])) best = id;
+        }
+        return best;
+    }
+
+    /**
+     * Places within radiusKm (great-circle) of (lat,lng) in country and admin1
+     * (null for any), nearest first, at most maxRows of them.
+     */
+    int[] nearby(double lat, double lng, double radiusKm, String country, String admin1, int maxRows) {
+        // Box around the circle; where it would cross a pole or the antimeridian, search every longitude
+        double dLat = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double cosLat = Math.cos(Math.toRadians(Math.min(90, Math.abs(lat) + dLat)));
+        double dLng = cosLat > 1e-9 ? dLat / cosLat : 360;
+        double minLng = lng - dLng, maxLng = lng + dLng;
+        if (minLng < -180 || maxLng > 180) {
+            minLng = -180;
+            maxLng = 180;
+        }
+
+        Hits hits = new Hits();
+        tree.search(lat - dLat, minLng, lat + dLat, maxLng, id -> {
+            if (!in(id, country, admin1)) return;
+            double d = distanceKm(lat, lng, lats[id], lngs[id]);
+            if (d <= radiusKm) hits.add(id, d);
+        });
+        return hits.nearest(maxRows);
+    }
+
+    /** Places found by a radius query with their distances, growable. */
+    static final class Hits {
+        private int[] ids = new int[16];
+        private double[] dist = new double[16];
+        private int size;
+
+        void add(int id, double d) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                dist = Arrays.copyOf(dist, size * 2);
+            }
+            ids[size] = id;
+            dist[size++] = d;
+        }
+
+        /** The ids ordered by distance, at most maxRows of them. */
+        int[] nearest(int maxRows) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Double.compare(dist[a], dist[b]));
+            int[] out = new int[Math.min(size, maxRows)];
+            for (int i = 0; i < out.length; i++) out[i] = ids[order[i]];
+            return out;
+        }
+    }
+
+    /** Great-circle distance by the haversine formula. */
+    static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double p1 = Math.toRadians(lat1), p2 = Math.toRadians(lat2);
+        double dp = p2 - p1, dl = Math.toRadians(lng2 - lng1);
+        double h = Math.sin(dp / 2) * Math.sin(dp / 2) + Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+}
@@ -0,0 +1,151 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Streaming reader for GeoJSON FeatureCollections.
+ *
+ * Reads straight from the file channel with Jackson's JsonParser instead of
+ * building a JsonNode tree, so only the feature currently being parsed is held
+ * in memory. Properties not listed in the caller's key set are skipped without
+ * being materialized.
+ */
+final class GeoJsonStream {
+
+    /** Receives one feature at a time, in file order. */
+    interface FeatureHandler {
+        /**
+         * @param props    kept properties, as text
+         * @param geomType GeoJSON geometry type, or "" if the feature has none
+         * @param parts    one array per ring / line segment / point, interleaved lat,lng
+         */
+        void feature(Map<String, String> props, String geomType, List<double[]> parts) throws IOException;
+    }
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private GeoJsonStream() {}
+
+    static void read(Path file, Set<String> keepProps, FeatureHandler handler) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+             InputStream in = Channels.newInputStream(ch)) {
+            read(in, keepProps, handler);
+        }
+    }
+
+    static void read(InputStream in, Set<String> keepProps, FeatureHandler handler) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Not a GeoJSON object");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                if ("features".equals(field) && t == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) readFeature(p, keepProps, handler);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+    }
+
+    // ── Feature parsing ──────────────────────────────────────────────────────
+
+    private static void readFeature(JsonParser p, Set<String> keepProps, FeatureHandler handler) throws IOException {
+        Map<String, String> props = new HashMap<>();
+        String geomType = "";
+        List<double[]> parts = new ArrayList<>();
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if ("properties".equals(field) && t == JsonToken.START_OBJECT) {
+                readProperties(p, keepProps, props);
+            } else if ("geometry".equals(field) && t == JsonToken.START_OBJECT) {
+                geomType = readGeometry(p, parts);
+            } else {
+                p.skipChildren();
+            }
+        }
+        handler.feature(props, geomType, parts);
+    }
+
+    private static void readProperties(JsonParser p, Set<String> keepProps, Map<String, String> out) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String key = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if (t.isScalarValue() && t != JsonToken.VALUE_NULL && keepProps.contains(key)) {
+                out.put(key, p.getValueAsString());
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static String readGeometry(JsonParser p, List<double[]> parts) throws IOException {
+        String type = "";
+        CoordBuffer buf = new CoordBuffer();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if ("type".equals(field)) {
+                type = p.getValueAsString("");
+            } else if ("coordinates".equals(field) && t == JsonToken.START_ARRAY) {
+                // A bare position (Point) never gets flushed by readArray, so do it here
+                readArray(p, buf, parts);
+                if (buf.size > 0) parts.add(buf.take());
+            } else {
+                p.skipChildren();
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Reads one coordinate array of any nesting depth. Arrays whose children are
+     * positions become one part each; returns true if this array was itself a position.
+     */
+    private static boolean readArray(JsonParser p, CoordBuffer buf, List<double[]> parts) throws IOException {
+        JsonToken t = p.nextToken();
+        if (t != null && t.isNumeric()) {
+            double lng = p.getDoubleValue();
+            p.nextToken();
+            double lat = p.getDoubleValue();
+            while ((t = p.nextToken()) != JsonToken.END_ARRAY) p.skipChildren(); // altitude etc.
+            buf.add(lat, lng);
+            return true;
+        }
+        boolean holdsPositions = false;
+        while (t == JsonToken.START_ARRAY) {
+            if (readArray(p, buf, parts)) holdsPositions = true;
+            t = p.nextToken();
+        }
+        if (holdsPositions && buf.size > 0) parts.add(buf.take());
+        return false;
+    }
+
+    /** Growable interleaved lat,lng buffer reused across parts of one geometry. */
+    private static final class CoordBuffer {
+        double[] data = new double[256];
+        int size;
+
+        void add(double lat, double lng) {
+            if (size + 2 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = lat;
+            data[size++] = lng;
+        }
+
+        double[] take() {
+            double[] out = Arrays.copyOf(data, size);
+            size = 0;
+            return out;
+        }
+    }
+}
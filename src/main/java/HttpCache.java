@@ -0,0 +1,271 @@
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Two-tier cache for GeoNames and Overpass responses, so relaunching with the same
+ * town, state and radius needs no network round trips.
+ *
+ * Entries are keyed by a SHA-256 of the normalized request (method, URL with
+ * sorted query parameters, body) and stored one file per key. A file's modified
+ * time is its write time, for the TTL; its access time is bumped on every hit and
+ * the least recently used files are evicted once the directory exceeds its size
+ * budget. Small bodies are also kept in a byte-bounded in-memory LRU in front of
+ * the disk.
+ *
+ * Settings: -Dhttpcache.dir (default ~/.suburbanscramble/http-cache),
+ * -Dhttpcache.ttlHours (168), -Dhttpcache.maxMB (256); -Dhttpcache.debug prints
+ * every hit and miss.
+ */
+final class HttpCache {
+
+    private static final int MEMORY_BUDGET = 16 << 20;
+    private static final int MEMORY_ENTRY_MAX = 1 << 20;
+    private static final boolean DEBUG = Boolean.getBoolean("httpcache.debug");
+
+    private static HttpCache shared;
+
+    private final Path dir;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+
+    final AtomicInteger memoryHits = new AtomicInteger();
+    final AtomicInteger diskHits = new AtomicInteger();
+    final AtomicInteger misses = new AtomicInteger();
+
+    HttpCache(Path dir, long ttlMillis, long maxBytes) {
+        this.dir = dir;
+        this.ttlMillis = ttlMillis;
+        this.maxBytes = maxBytes;
+    }
+
+    static synchronized HttpCache shared() {
+        if (shared == null) {
+            Path dir = Paths.get(System.getProperty("httpcache.dir",
+                    Paths.get(System.getProperty("user.home"), ".suburbanscramble", "http-cache").toString()));
+            long ttlHours = Long.getLong("httpcache.ttlHours", 168);
+            long maxMb = Long.getLong("httpcache.maxMB", 256);
+            shared = new HttpCache(dir, ttlHours * 3_600_000, maxMb << 20);
+        }
+        return shared;
+    }
+
+    // ── Keys ─────────────────────────────────────────────────────────────────
+
+    /** Hex SHA-256 of the request with its query parameters sorted; body may be null. */
+    static String key(HttpRequest request, String body) {
+        URI uri = request.uri();
+        String query = uri.getRawQuery();
+        String sorted = "";
+        if (query != null) {
+            String[] params = query.split("&");
+            Arrays.sort(params);
+            sorted = "?" + String.join("&", params);
+        }
+        String normalized = request.method() + " " + uri.getScheme() + "://" + uri.getHost().toLowerCase(Locale.ROOT)
+                + (uri.getPort() < 0 ? "" : ":" + uri.getPort()) + uri.getRawPath() + sorted
+                + "\n" + (body == null ? "" : body);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ── Lookup ───────────────────────────────────────────────────────────────
+
+    /** The cached body for key if it is within its TTL, else null (a miss). */
+    InputStream lookup(String key, String label) throws IOException {
+        byte[] bytes;
+        synchronized (this) {
+            bytes = memory.get(key);
+        }
+        if (bytes != null) {
+            report("memory hit", label, memoryHits);
+            return new ByteArrayInputStream(bytes);
+        }
+
+        Path file = dir.resolve(key);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            report("miss", label, misses);
+            return null;
+        }
+        if (System.currentTimeMillis() - attrs.lastModifiedTime().toMillis() > ttlMillis) {
+            Files.deleteIfExists(file);
+            report("miss (expired)", label, misses);
+            return null;
+        }
+        InputStream body;
+        try {
+            Files.setAttribute(file, "lastAccessTime", FileTime.fromMillis(System.currentTimeMillis()));
+            if (attrs.size() <= MEMORY_ENTRY_MAX) {
+                bytes = Files.readAllBytes(file);
+                remember(key, bytes);
+                body = new ByteArrayInputStream(bytes);
+            } else {
+                body = Files.newInputStream(file);
+            }
+        } catch (NoSuchFileException e) {
+            // evict() on another thread deleted it since the check above
+            report("miss", label, misses);
+            return null;
+        }
+        report("disk hit", label, diskHits);
+        return body;
+    }
+
+    private static void report(String outcome, String label, AtomicInteger counter) {
+        counter.incrementAndGet();
+        if (DEBUG) System.out.println("HTTP cache " + outcome + ": " + label);
+    }
+
+    private synchronized void remember(String key, byte[] bytes) {
+        byte[] old = memory.put(key, bytes);
+        memoryBytes += bytes.length - (old == null ? 0 : old.length);
+        Iterator<byte[]> eldest = memory.values().iterator();
+        while (memoryBytes > MEMORY_BUDGET && eldest.hasNext()) {
+            memoryBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    // ── Fill ─────────────────────────────────────────────────────────────────
+
+    /**
+     * Wraps a network response body so what the caller reads is also written to
+     * the cache. The entry is only stored if the caller calls commit() (once it
+     * has decided the response is worth keeping) before closing.
+     */
+    Fill fill(String key, InputStream body) throws IOException {
+        Files.createDirectories(dir);
+        return new Fill(key, body, Files.createTempFile(dir, key, ".part"));
+    }
+
+    final class Fill extends FilterInputStream {
+        private final String key;
+        private final Path temp;
+        private final OutputStream out;
+        private ByteArrayOutputStream small = new ByteArrayOutputStream();
+        private boolean committed, closed;
+
+        private Fill(String key, InputStream body, Path temp) throws IOException {
+            super(body);
+            this.key = key;
+            this.temp = temp;
+            this.out = Files.newOutputStream(temp);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) copy(new byte[] {(byte) b}, 0, 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) copy(buf, off, n);
+            return n;
+        }
+
+        private void copy(byte[] buf, int off, int len) throws IOException {
+            out.write(buf, off, len);
+            if (small != null) {
+                if (small.size() + len <= MEMORY_ENTRY_MAX) small.write(buf, off, len);
+                else small = null;
+            }
+        }
+
+        /** Reads whatever the caller left unread, then keeps the entry when closed. */
+        void commit() throws IOException {
+            transferTo(OutputStream.nullOutputStream());
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try (out) {
+                super.close();
+            }
+            if (!committed) {
+                Files.deleteIfExists(temp);
+                return;
+            }
+            Files.move(temp, dir.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (small != null) remember(key, small.toByteArray());
+            evict();
+        }
+    }
+
+    /** Stores a body the caller already holds in full (see Net.getJson). */
+    void put(String key, byte[] body) throws IOException {
+        try (Fill fill = fill(key, new ByteArrayInputStream(body))) {
+            fill.commit();
+        }
+    }
+
+    /** Drops least recently used entries until the directory fits in maxBytes. */
+    private synchronized void evict() throws IOException {
+        List<Path> files = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path f : entries) {
+                if (f.getFileName().toString().endsWith(".part")) continue;
+                files.add(f);
+                total += Files.size(f);
+            }
+        }
+        if (total <= maxBytes) return;
+        files.sort(Comparator.comparing(f -> {
+            try { return Files.readAttributes(f, BasicFileAttributes.class).lastAccessTime(); }
+            catch (IOException e) { return FileTime.fromMillis(0); }
+        }));
+        for (Path f : files) {
+            if (total <= maxBytes) break;
+            total -= Files.size(f);
+            Files.deleteIfExists(f);
+            synchronized (this) {
+                memoryBytes -= Optional.ofNullable(memory.remove(f.getFileName().toString())).map(b -> b.length).orElse(0);
+            }
+        }
+    }
+
+    /**
+     * GeoNames answers errors (bad user, quota exceeded) with a 200 and a top-level
+     * "status" object; a place that happens to have a "status" field is still a
+     * result. Text that isn't a JSON object isn't one either.
+     */
+    static boolean isGeoNamesResult(String json) {
+        try {
+            JsonNode root = Net.MAPPER.readTree(json);
+            return root != null && root.isObject() && !root.path("status").isObject();
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The one HttpClient and ObjectMapper every network call shares, so connections
+ * (and HTTP/2 streams) are reused across GeoNames and Overpass requests instead
+ * of each call building its own client.
+ *
+ * getJson sends with HttpClient.sendAsync through the HttpCache and returns a
+ * CompletableFuture, so setup steps can be chained without blocking the EDT.
+ * Work that has to block (Overpass tiles, file IO) runs on BACKGROUND.
+ */
+final class Net {
+
+    static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(20))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Virtual threads for blocking steps of a pipeline. */
+    static final ExecutorService BACKGROUND = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Net() {}
+
+    /**
+     * GETs url as JSON, from the HttpCache when possible. Non-200 responses fail;
+     * a 200 is cached only if cacheable accepts its text (GeoNames, for one,
+     * reports errors inside a 200).
+     */
+    static CompletableFuture<JsonNode> getJson(String url, Predicate<String> cacheable) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+        String key = HttpCache.key(request, null);
+        String label = request.uri().getHost() + request.uri().getPath();
+        HttpCache cache = HttpCache.shared();
+
+        return CompletableFuture.supplyAsync(() -> cached(cache, key, label), BACKGROUND)
+                .thenCompose(text -> text != null
+                        ? CompletableFuture.completedFuture(text)
+                        : CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                                .thenApplyAsync(response -> {
+                                    if (response.statusCode() != 200) {
+                                        throw new CompletionException(
+                                                new IOException(label + " returned HTTP " + response.statusCode()));
+                                    }
+                                    if (cacheable.test(response.body())) {
+                                        store(cache, key, response.body());
+                                    }
+                                    return response.body();
+                                }, BACKGROUND))
+                .thenApply(Net::parse);
+    }
+
+    // ── Pipeline errors ──────────────────────────────────────────────────────
+
+    /** A failed setup step, carrying the message to show the user. */
+    static final class StepFailure extends RuntimeException {
+        StepFailure(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * For exceptionally(): labels a failure with the step it happened in
+     * ("what:\nmessage"). A StepFailure from an earlier step passes through as is.
+     */
+    static <T> Function<Throwable, T> failure(String what) {
+        return t -> {
+            Throwable c = cause(t);
+            if (c instanceof StepFailure f) throw f;
+            throw new StepFailure(what + ":\n" + c.getMessage(), c);
+        };
+    }
+
+    /** The exception a pipeline stage actually failed with, without CompletionException wrappers. */
+    static Throwable cause(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) t = t.getCause();
+        return t;
+    }
+
+    private static String cached(HttpCache cache, String key, String label) {
+        try (InputStream in = cache.lookup(key, label)) {
+            return in == null ? null : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void store(HttpCache cache, String key, String text) {
+        try {
+            cache.put(key, text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.out.println("HTTP cache write failed: " + e.getMessage()); // the response is still usable
+        }
+    }
+
+    private static JsonNode parse(String text) {
+        try {
+            return MAPPER.readTree(text);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches admin_level=8 boundary relations around a point from the Overpass API.
+ *
+ * A search circle that fits in one tile (-Doverpass.tileMeters, 40 km) is a
+ * single query. A larger one is cut into square tiles that are queried
+ * concurrently on virtual threads, at most `concurrency` at a time, so it doesn't
+ * run into Overpass's per-query timeout. Tiles stay large because every tile
+ * downloads the full geometry of each relation it touches.
+ *
+ * Busy or failed tiles, and replies that end in an Overpass error remark or
+ * break off, are retried with exponential backoff. A relation crossing several
+ * tiles is built only once (de-duplicated by relation id) and the merged towns
+ * come back in id order, as a single Overpass query would list them.
+ *
+ * Tile responses go through the HttpCache, so a repeated setup sends nothing, and
+ * requests share Net's HttpClient (and its connections).
+ *
+ * Defaults can be overridden with -Doverpass.url, -Doverpass.concurrency,
+ * -Doverpass.tileMeters and -Doverpass.retries.
+ */
+final class OverpassFetcher {
+
+    static final String DEFAULT_URL = "https://overpass-api.de/api/interpreter";
+
+    // Only these tags are kept from each relation; the rest (wikidata, name:xx, …) are skipped
+    private static final Set<String> RELATION_TAGS = Set.of("name", "population", "area");
+    private static final double METERS_PER_DEGREE = 111_320;
+    // Too many requests, and the gateway errors Overpass answers with when overloaded
+    private static final Set<Integer> RETRY_STATUS = Set.of(429, 502, 503, 504);
+    // Longest wait between attempts, whatever Retry-After or the backoff asks for
+    private static final long MAX_RETRY_WAIT_MS = 120_000;
+
+    private final String url;
+    private final int concurrency;
+    private final double tileMeters;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final HttpCache cache;
+
+    /** HTTP requests sent by the last fetch, retries included. */
+    final AtomicInteger requestsSent = new AtomicInteger();
+
+    OverpassFetcher(String url, int concurrency, double tileMeters, int maxAttempts, long backoffMillis, HttpCache cache) {
+        this.url = url;
+        this.concurrency = Math.max(1, concurrency);
+        this.tileMeters = tileMeters;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.cache = cache;
+    }
+
+    /**
+     * Overpass's public instance allows two concurrent queries per client. 40 km
+     * tiles keep radii up to about 12 miles, the game's usual range, to one query.
+     */
+    static OverpassFetcher fromSystemProperties() {
+        return new OverpassFetcher(
+                System.getProperty("overpass.url", DEFAULT_URL),
+                Integer.getInteger("overpass.concurrency", 2),
+                Double.parseDouble(System.getProperty("overpass.tileMeters", "40000")),
+                Integer.getInteger("overpass.retries", 4),
+                1000,
+                HttpCache.shared());
+    }
+
+    /** Towns whose boundary lies within radiusMeters of (lat,lng), ordered by relation id. */
+    List<SuburbanScrambleMAP.TownRegion> fetchTowns(double lat, double lng, int radiusMeters) throws Exception {
+        List<double[]> tiles = tiles(lat, lng, radiusMeters);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        Map<Long, SuburbanScrambleMAP.TownRegion> towns = new ConcurrentSkipListMap<>();
+        Semaphore slots = new Semaphore(concurrency);
+        requestsSent.set(0);
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> pending = new ArrayList<>();
+            for (int i = 0; i < tiles.size(); i++) {
+                double[] tile = tiles.get(i);
+                String debugFile = debugFile(i, tiles.size());
+                pending.add(pool.submit(() -> {
+                    fetchTile(tile, slots, debugFile, (id, tags, outer, inner) -> {
+                        if (outer.isEmpty() || !seen.add(id)) return;
+                        SuburbanScrambleMAP.TownRegion town = toTown(tags, outer, inner);
+                        if (withinRadius(town.rings, lat, lng, radiusMeters)) towns.put(id, town);
+                    });
+                    return null;
+                }));
+            }
+            for (Future<?> f : pending) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    pool.shutdownNow();
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+        }
+        System.out.printf("Overpass: %d tiles, %d requests, %d towns%n", tiles.size(), requestsSent.get(), towns.size());
+        return new ArrayList<>(towns.values());
+    }
+
+    // ── Tiling ───────────────────────────────────────────────────────────────
+
+    /** South, west, north, east of each tile that overlaps the search circle. */
+    List<double[]> tiles(double lat, double lng, int radiusMeters) {
+        double cosLat = Math.cos(Math.toRadians(lat));
+        int n = Math.max(1, (int) Math.ceil(2 * radiusMeters / tileMeters));
+        double side = 2.0 * radiusMeters / n;
+        List<double[]> tiles = new ArrayList<>();
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                // Tile extent in meters east/north of the center
+                double y0 = -radiusMeters + row * side, x0 = -radiusMeters + col * side;
+                double nearX = Math.max(x0, Math.min(0, x0 + side));
+                double nearY = Math.max(y0, Math.min(0, y0 + side));
+                if (nearX * nearX + nearY * nearY > (double) radiusMeters * radiusMeters) continue;
+                tiles.add(new double[] {
+                        lat + y0 / METERS_PER_DEGREE,
+                        lng + x0 / (METERS_PER_DEGREE * cosLat),
+                        lat + (y0 + side) / METERS_PER_DEGREE,
+                        lng + (x0 + side) / (METERS_PER_DEGREE * cosLat)});
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Mirrors Overpass's around: filter on the merged result, which tile bboxes
+     * overshoot: a town is kept if the center is inside it or any boundary edge,
+     * not just any vertex, passes within the radius.
+     */
+    private static boolean withinRadius(PackedGeometry rings, double lat, double lng, int radiusMeters) {
+        if (rings.contains(lat, lng)) return true;
+        // Plane around the center: x = lng shrunk by cos(lat), y = lat, both in degrees
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double r = radiusMeters / METERS_PER_DEGREE;
+        for (int p = 0; p < rings.partCount(); p++) {
+            int start = rings.partStart(p), end = rings.partEnd(p);
+            for (int i = start, j = end - 1; i < end; j = i++) {
+                double d = RegionMetrics.segmentDistanceSq(lng * cosLat, lat,
+                        rings.lng(i) * cosLat, rings.lat(i), rings.lng(j) * cosLat, rings.lat(j));
+                if (d <= r * r) return true;
+            }
+        }
+        return false;
+    }
+
+    // ── Requests ─────────────────────────────────────────────────────────────
+
+    private void fetchTile(double[] bbox, Semaphore slots, String debugFile,
+                           OverpassStream.RelationHandler handler) throws Exception {
+        String query = String.format(Locale.ROOT,
+                "[out:json][timeout:90];"
+                + "(relation[\"boundary\"=\"administrative\"][\"admin_level\"=\"8\"](%.6f,%.6f,%.6f,%.6f););"
+                + "out geom;", bbox[0], bbox[1], bbox[2], bbox[3]);
+        String form = "data=" + URLEncoder.encode(query, StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+
+        // A tile fetched before (same town, state and radius) needs no request or slot
+        String key = HttpCache.key(request, form);
+        InputStream cached = cache.lookup(key, String.format(Locale.ROOT, "Overpass tile %.4f,%.4f", bbox[0], bbox[1]));
+        if (cached != null) {
+            try (InputStream body = debugFile == null ? cached : OverpassStream.capture(cached, Paths.get(debugFile))) {
+                OverpassStream.read(body, RELATION_TAGS, handler);
+            }
+            return;
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            long retryAfterMs = 0;
+            slots.acquire();
+            try {
+                HttpResponse<InputStream> response = null;
+                try {
+                    requestsSent.incrementAndGet();
+                    response = Net.CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                } catch (IOException e) {
+                    if (attempt >= maxAttempts) throw e; // otherwise a dropped connection: retry
+                }
+                if (response != null) {
+                    int status = response.statusCode();
+                    if (status == 200) {
+                        // -Doverpass.debug=<file> saves the raw response there instead of printing it
+                        // Only kept in the cache once the whole response parsed without an Overpass error
+                        try (HttpCache.Fill fill = cache.fill(key, response.body());
+                             InputStream body = debugFile == null ? fill : OverpassStream.capture(fill, Paths.get(debugFile))) {
+                            OverpassStream.read(body, RELATION_TAGS, handler);
+                            fill.commit();
+                            return;
+                        } catch (IOException e) {
+                            // A remark error (e.g. a server-side timeout) or a body cut off mid-way: retry.
+                            // Relations already handled are complete, and seen again they're skipped by id.
+                            if (attempt >= maxAttempts) throw e;
+                        }
+                    } else {
+                        response.body().close();
+                        if (!RETRY_STATUS.contains(status) || attempt >= maxAttempts) {
+                            throw new IOException("Overpass returned HTTP " + status);
+                        }
+                        retryAfterMs = retryAfterMillis(response.headers().firstValue("Retry-After").orElse(null),
+                                System.currentTimeMillis());
+                    }
+                }
+            } finally {
+                slots.release();
+            }
+            long backoff = backoffMillis << (attempt - 1);
+            long jittered = backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+            Thread.sleep(Math.min(MAX_RETRY_WAIT_MS, Math.max(retryAfterMs, jittered)));
+        }
+    }
+
+    /**
+     * Retry-After in milliseconds from now: delta-seconds or an HTTP-date. 0 when
+     * absent, unreadable or in the past, so the caller falls back to its backoff.
+     */
+    static long retryAfterMillis(String header, long nowMillis) {
+        if (header == null) return 0;
+        String value = header.trim();
+        try {
+            return Math.max(0, Math.min(Long.parseLong(value), MAX_RETRY_WAIT_MS / 1000)) * 1000;
+        } catch (NumberFormatException e) {
+            // not delta-seconds: try the date form
+        }
+        try {
+            long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - nowMillis);
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private static String debugFile(int tile, int tileCount) {
+        String file = System.getProperty("overpass.debug");
+        if (file == null || tileCount == 1) return file;
+        return file + "." + tile;
+    }
+
+    // ── Town building ────────────────────────────────────────────────────────
+
+    private static SuburbanScrambleMAP.TownRegion toTown(Map<String, String> tags, List<double[]> outer, List<double[]> inner) {
+        SuburbanScrambleMAP.TownRegion town = new SuburbanScrambleMAP.TownRegion();
+        town.name = tags.getOrDefault("name", "Unknown");
+        town.population = parseIntOr(tags.get("population"), 0);
+        town.area = parseDoubleOr(tags.get("area"), 0.0);
+        town.rings = PackedGeometry.of(SuburbanScrambleMAP.stitchRings(outer, inner));
+        town.rings.buildLevelsOfDetail(false);
+        town.metrics = RegionMetrics.of(town.rings);
+        return town;
+    }
+
+    private static int parseIntOr(String text, int fallback) {
+        if (text == null) return fallback;
+        try { return Integer.parseInt(text.trim()); }
+        catch (NumberFormatException e) { return fallback; }
+    }
+
+    private static double parseDoubleOr(String text, double fallback) {
+        if (text == null) return fallback;
+        try { return Double.parseDouble(text.trim()); }
+        catch (NumberFormatException e) { return fallback; }
+    }
+}
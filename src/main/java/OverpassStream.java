@@ -0,0 +1,178 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Streaming reader for Overpass API JSON responses ("out geom").
+ *
+ * Walks the response with Jackson's JsonParser and hands over one relation at a
+ * time, so only the element currently being parsed is held in memory. Way members
+ * arrive as interleaved lat,lng arrays split by role; tags not listed in the
+ * caller's key set are skipped.
+ */
+final class OverpassStream {
+
+    /** Receives one relation at a time, in response order. */
+    interface RelationHandler {
+        /**
+         * @param id    OSM relation id
+         * @param tags  kept tags, as text
+         * @param outer geometry of each "outer" way member, interleaved lat,lng
+         * @param inner geometry of each "inner" way member, interleaved lat,lng
+         */
+        void relation(long id, Map<String, String> tags, List<double[]> outer, List<double[]> inner) throws IOException;
+    }
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private OverpassStream() {}
+
+    /** Parses the response; the caller keeps ownership of in and closes it. */
+    static void read(InputStream in, Set<String> keepTags, RelationHandler handler) throws IOException {
+        try (JsonParser p = FACTORY.createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Not an Overpass JSON response");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                JsonToken t = p.nextToken();
+                if ("elements".equals(field) && t == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) readElement(p, keepTags, handler);
+                } else if ("remark".equals(field) && t == JsonToken.VALUE_STRING) {
+                    // Overpass reports timeouts and quota errors here, with a 200 status
+                    String remark = p.getText();
+                    if (remark.contains("error")) throw new IOException("Overpass: " + remark);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps a response body so every byte read is also written to file, for
+     * inspecting what Overpass sent without echoing it to the console.
+     */
+    static InputStream capture(InputStream in, Path file) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) out.write(b);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                int n = super.read(buf, off, len);
+                if (n > 0) out.write(buf, off, n);
+                return n;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try (out) {
+                    super.close();
+                }
+            }
+        };
+    }
+
+    // ── Element parsing ──────────────────────────────────────────────────────
+
+    private static void readElement(JsonParser p, Set<String> keepTags, RelationHandler handler) throws IOException {
+        String type = "";
+        long id = 0;
+        Map<String, String> tags = new HashMap<>();
+        List<double[]> outer = new ArrayList<>();
+        List<double[]> inner = new ArrayList<>();
+
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            switch (field) {
+                case "type" -> type = p.getValueAsString("");
+                case "id"   -> id = p.getValueAsLong();
+                case "tags" -> {
+                    if (t == JsonToken.START_OBJECT) readTags(p, keepTags, tags);
+                    else p.skipChildren();
+                }
+                case "members" -> {
+                    if (t == JsonToken.START_ARRAY) {
+                        while (p.nextToken() == JsonToken.START_OBJECT) readMember(p, outer, inner);
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+                default -> p.skipChildren();
+            }
+        }
+        if ("relation".equals(type)) handler.relation(id, tags, outer, inner);
+    }
+
+    private static void readTags(JsonParser p, Set<String> keepTags, Map<String, String> out) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String key = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if (t.isScalarValue() && t != JsonToken.VALUE_NULL && keepTags.contains(key)) {
+                out.put(key, p.getValueAsString());
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static void readMember(JsonParser p, List<double[]> outer, List<double[]> inner) throws IOException {
+        String type = "", role = "";
+        double[] way = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken t = p.nextToken();
+            if ("type".equals(field)) {
+                type = p.getValueAsString("");
+            } else if ("role".equals(field)) {
+                role = p.getValueAsString("");
+            } else if ("geometry".equals(field) && t == JsonToken.START_ARRAY) {
+                way = readGeometry(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        if (!"way".equals(type) || way == null || way.length < 4) return;
+        if ("outer".equals(role)) outer.add(way);
+        else if ("inner".equals(role)) inner.add(way);
+    }
+
+    /** Reads [{"lat":..,"lon":..}, ...]; entries for nodes outside the query's bbox come back as null. */
+    private static double[] readGeometry(JsonParser p) throws IOException {
+        double[] coords = new double[64];
+        int size = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (t != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            double lat = Double.NaN, lng = Double.NaN;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                p.nextToken();
+                if ("lat".equals(field)) lat = p.getDoubleValue();
+                else if ("lon".equals(field)) lng = p.getDoubleValue();
+                else p.skipChildren();
+            }
+            if (Double.isNaN(lat) || Double.isNaN(lng)) continue;
+            if (size + 2 > coords.length) coords = Arrays.copyOf(coords, coords.length * 2);
+            coords[size++] = lat;
+            coords[size++] = lng;
+        }
+        return Arrays.copyOf(coords, size);
+    }
+}
@@ -0,0 +1,336 @@
+import org.jxmapviewer.viewer.TileFactoryInfo;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Flat vertex storage for one feature (a region's rings, a line's segments or a point layer).
+ *
+ * All vertices live in one interleaved lat,lng double[]; offsets[p] is the index of
+ * the first vertex of part p and offsets[partCount] is the total vertex count.
+ * Replaces List<List<GeoPosition>> so that a feature costs two arrays instead of
+ * one boxed object per vertex.
+ */
+final class PackedGeometry {
+
+    static final PackedGeometry EMPTY = new PackedGeometry(new double[0], new int[] {0});
+
+    private final double[] coords;
+    private final int[] offsets;
+
+    // Bounding box, computed once at load; inverted (min > max) when empty
+    final double minLat, minLng, maxLat, maxLng;
+    // Vertex coordinate sums from the same pass, so averages over many features need no second scan
+    final double sumLat, sumLng;
+
+    PackedGeometry(double[] coords, int[] offsets) {
+        this.coords = coords;
+        this.offsets = offsets;
+        double loLat = Double.POSITIVE_INFINITY, loLng = Double.POSITIVE_INFINITY;
+        double hiLat = Double.NEGATIVE_INFINITY, hiLng = Double.NEGATIVE_INFINITY;
+        double latSum = 0, lngSum = 0;
+        for (int i = 0; i < offsets[offsets.length - 1] * 2; i += 2) {
+            loLat = Math.min(loLat, coords[i]);
+            hiLat = Math.max(hiLat, coords[i]);
+            loLng = Math.min(loLng, coords[i + 1]);
+            hiLng = Math.max(hiLng, coords[i + 1]);
+            latSum += coords[i];
+            lngSum += coords[i + 1];
+        }
+        minLat = loLat; minLng = loLng; maxLat = hiLat; maxLng = hiLng;
+        sumLat = latSum; sumLng = lngSum;
+    }
+
+    /** Packs parts given as interleaved lat,lng arrays; empty parts are dropped. */
+    static PackedGeometry of(List<double[]> parts) {
+        Builder b = new Builder();
+        for (double[] part : parts) {
+            for (int i = 0; i + 1 < part.length; i += 2) b.add(part[i], part[i + 1]);
+            b.endPart();
+        }
+        return b.build();
+    }
+
+    int partCount()        { return offsets.length - 1; }
+    int vertexCount()      { return offsets[offsets.length - 1]; }
+    int partStart(int p)   { return offsets[p]; }
+    int partEnd(int p)     { return offsets[p + 1]; }
+    double lat(int v)      { return coords[v * 2]; }
+    double lng(int v)      { return coords[v * 2 + 1]; }
+    boolean isEmpty()      { return vertexCount() == 0; }
+
+    /** True if this geometry's bounding box overlaps the given one. */
+    boolean intersects(double south, double west, double north, double east) {
+        return minLat <= north && maxLat >= south && minLng <= east && maxLng >= west;
+    }
+
+    /** Even-odd point-in-polygon test in geo coordinates across all rings. */
+    boolean contains(double lat, double lng) {
+        if (!intersects(lat, lng, lat, lng)) return false;
+        boolean inside = false;
+        for (int p = 0; p < partCount(); p++) {
+            int start = offsets[p], end = offsets[p + 1];
+            for (int i = start, j = end - 1; i < end; j = i++) {
+                double latI = lat(i), latJ = lat(j);
+                if ((latI > lat) != (latJ > lat)
+                        && lng < (lng(j) - lng(i)) * (lat - latI) / (latJ - latI) + lng(i)) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    // ── Levels of detail ─────────────────────────────────────────────────────
+    //
+    // Douglas-Peucker levels built once at load. Level k is simplified from level
+    // k-1 at LOD_BASE_TOLERANCE * 2^k, measured in "ground degrees" (longitude
+    // scaled by cos(latitude)), so its total error is below twice that tolerance.
+    // Painters pick the coarsest level whose error stays under LOD_MAX_ERROR_PX.
+
+    private static final double LOD_BASE_TOLERANCE = 1e-5; // ~1 m
+    private static final int LOD_LEVELS = 10;
+    private static final double LOD_MAX_ERROR_PX = 0.5;
+
+    private PackedGeometry[] lods;
+
+    /**
+     * Builds the simplified levels for this geometry; call once after loading.
+     * For open lines, way pieces that meet end to end are chained first so the
+     * simplifier is not forced to keep every piece's endpoints.
+     */
+    void buildLevelsOfDetail(boolean openLines) {
+        PackedGeometry[] levels = new PackedGeometry[LOD_LEVELS];
+        double cosLat = cosMidLat();
+        PackedGeometry prev = openLines ? joinTouchingParts() : this;
+        for (int k = 0; k < LOD_LEVELS; k++) {
+            PackedGeometry next = prev.simplify(LOD_BASE_TOLERANCE * (1 << k), cosLat);
+            levels[k] = next.vertexCount() == prev.vertexCount() ? prev : next;
+            prev = levels[k];
+        }
+        lods = levels;
+    }
+
+    /** The coarsest level that still draws within LOD_MAX_ERROR_PX of the full geometry at this zoom. */
+    PackedGeometry levelOfDetail(TileFactoryInfo info, int zoom) {
+        if (lods == null) return this;
+        double budget = LOD_MAX_ERROR_PX / 2 * cosMidLat() / info.getLongitudeDegreeWidthInPixels(zoom);
+        PackedGeometry best = this;
+        for (int k = 0; k < lods.length && LOD_BASE_TOLERANCE * (1 << k) <= budget; k++) best = lods[k];
+        return best;
+    }
+
+    /** Concatenates consecutive parts that share an endpoint, reversing pieces as needed. */
+    private PackedGeometry joinTouchingParts() {
+        Builder out = new Builder();
+        double endLat = Double.NaN, endLng = Double.NaN;
+        for (int p = 0; p < partCount(); p++) {
+            int first = offsets[p], last = offsets[p + 1] - 1;
+            boolean reversed;
+            if (same(first, endLat, endLng)) {
+                reversed = false;
+                first++;
+            } else if (same(last, endLat, endLng)) {
+                reversed = true;
+                last--;
+            } else {
+                out.endPart();
+                // Starting a new chain: orient it so its tail meets the next piece if possible
+                reversed = p + 1 < partCount()
+                        && (same(offsets[p + 1], lat(first), lng(first)) || same(offsets[p + 2] - 1, lat(first), lng(first)));
+            }
+            if (reversed) {
+                for (int v = last; v >= first; v--) out.add(lat(v), lng(v));
+                endLat = lat(offsets[p]);
+                endLng = lng(offsets[p]);
+            } else {
+                for (int v = first; v <= last; v++) out.add(lat(v), lng(v));
+                endLat = lat(offsets[p + 1] - 1);
+                endLng = lng(offsets[p + 1] - 1);
+            }
+        }
+        return out.build();
+    }
+
+    private boolean same(int v, double lat, double lng) {
+        return lat(v) == lat && lng(v) == lng;
+    }
+
+    private double cosMidLat() {
+        return isEmpty() ? 1 : Math.cos(Math.toRadians((minLat + maxLat) / 2));
+    }
+
+    /** Douglas-Peucker on every part; endpoints of each part are always kept. */
+    private PackedGeometry simplify(double tolerance, double cosLat) {
+        Builder out = new Builder();
+        boolean[] keep = new boolean[0];
+        int[] stack = new int[64];
+        double tol2 = tolerance * tolerance;
+
+        for (int p = 0; p < partCount(); p++) {
+            int start = offsets[p], end = offsets[p + 1] - 1;
+            if (end - start < 2) {
+                for (int v = start; v <= end; v++) out.add(lat(v), lng(v));
+                out.endPart();
+                continue;
+            }
+            if (keep.length < end - start + 1) keep = new boolean[end - start + 1];
+            Arrays.fill(keep, 0, end - start + 1, false);
+            keep[0] = true;
+            keep[end - start] = true;
+
+            int top = 0;
+            stack[top++] = start;
+            stack[top++] = end;
+            while (top > 0) {
+                int b = stack[--top], a = stack[--top];
+                double ax = lng(a) * cosLat, ay = lat(a);
+                double dx = lng(b) * cosLat - ax, dy = lat(b) - ay;
+                double len2 = dx * dx + dy * dy;
+                double maxDist2 = -1;
+                int farthest = -1;
+                for (int v = a + 1; v < b; v++) {
+                    double px = lng(v) * cosLat - ax, py = lat(v) - ay;
+                    double d2;
+                    if (len2 == 0) {
+                        d2 = px * px + py * py; // closed ring: distance to the shared endpoint
+                    } else {
+                        double cross = px * dy - py * dx;
+                        d2 = cross * cross / len2;
+                    }
+                    if (d2 > maxDist2) { maxDist2 = d2; farthest = v; }
+                }
+                if (farthest >= 0 && maxDist2 > tol2) {
+                    keep[farthest - start] = true;
+                    if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+                    stack[top++] = a;        stack[top++] = farthest;
+                    stack[top++] = farthest; stack[top++] = b;
+                }
+            }
+            for (int v = start; v <= end; v++) {
+                if (keep[v - start]) out.add(lat(v), lng(v));
+            }
+            out.endPart();
+        }
+        return out.build();
+    }
+
+    // ── Projection cache ─────────────────────────────────────────────────────
+    //
+    // Vertices are projected once per zoom level into world-pixel space (the
+    // map's bitmap coordinates); painters translate by the viewport origin at
+    // paint time, so panning never redoes the Mercator math. Entries are soft
+    // so rarely visited zoom levels can be reclaimed. Only touched from the EDT.
+
+    private TileFactoryInfo projectedFor;
+    private SoftReference<Path2D>[] openPaths;
+    private SoftReference<Path2D>[] closedPaths;
+    private SoftReference<double[]>[] worldCoords;
+
+    /**
+     * This geometry as a world-pixel path at the given zoom, using the level of detail
+     * for that zoom and cached until the zoom level's entry is reclaimed. Polygon rings
+     * are closed when closeParts is set, and filled even-odd so holes stay empty,
+     * matching contains().
+     */
+    Path2D worldPath(TileFactoryInfo info, int zoom, boolean closeParts) {
+        projectFor(info);
+        SoftReference<Path2D>[] cache = closeParts ? closedPaths : openPaths;
+        Path2D path = cache[zoom] != null ? cache[zoom].get() : null;
+        if (path == null) {
+            PackedGeometry g = levelOfDetail(info, zoom);
+            double[] xy = g.project(info, zoom);
+            path = new Path2D.Double(closeParts ? Path2D.WIND_EVEN_ODD : Path2D.WIND_NON_ZERO,
+                    g.vertexCount() + (closeParts ? g.partCount() : 0));
+            for (int p = 0; p < g.partCount(); p++) {
+                for (int v = g.offsets[p]; v < g.offsets[p + 1]; v++) {
+                    if (v == g.offsets[p]) path.moveTo(xy[v * 2], xy[v * 2 + 1]);
+                    else path.lineTo(xy[v * 2], xy[v * 2 + 1]);
+                }
+                if (closeParts) path.closePath();
+            }
+            cache[zoom] = new SoftReference<>(path);
+        }
+        return path;
+    }
+
+    /** Interleaved world-pixel x,y for every vertex at the given zoom; used for point layers. */
+    double[] worldCoords(TileFactoryInfo info, int zoom) {
+        projectFor(info);
+        SoftReference<double[]>[] cache = worldCoords;
+        double[] xy = cache[zoom] != null ? cache[zoom].get() : null;
+        if (xy == null) {
+            xy = project(info, zoom);
+            cache[zoom] = new SoftReference<>(xy);
+        }
+        return xy;
+    }
+
+    /** GeoUtil.getBitmapCoordinate for every vertex, inlined so no Point2D is made per vertex. */
+    private double[] project(TileFactoryInfo info, int zoom) {
+        double[] xy = new double[coords.length];
+        Point2D center = info.getMapCenterInPixelsAtZoom(zoom);
+        double cx = center.getX(), cy = center.getY();
+        double degreeWidth = info.getLongitudeDegreeWidthInPixels(zoom);
+        double radianWidth = info.getLongitudeRadianWidthInPixels(zoom);
+        for (int v = 0; v < vertexCount(); v++) {
+            double e = Math.max(-0.9999, Math.min(0.9999, Math.sin(Math.toRadians(lat(v)))));
+            xy[v * 2] = cx + lng(v) * degreeWidth;
+            xy[v * 2 + 1] = cy - 0.5 * Math.log((1 + e) / (1 - e)) * radianWidth;
+        }
+        return xy;
+    }
+
+    /** Empty per-zoom caches when info is not the tile set they were projected for. */
+    private void projectFor(TileFactoryInfo info) {
+        if (info == projectedFor) return;
+        int levels = info.getMaximumZoomLevel() + 1;
+        openPaths   = softReferences(levels);
+        closedPaths = softReferences(levels);
+        worldCoords = softReferences(levels);
+        projectedFor = info;
+    }
+
+    /** Java can't create an array of a generic type, only of the wildcard one. */
+    private static <T> SoftReference<T>[] softReferences(int size) {
+        @SuppressWarnings("unchecked")
+        SoftReference<T>[] refs = (SoftReference<T>[]) new SoftReference<?>[size];
+        return refs;
+    }
+
+    // ── Builder ──────────────────────────────────────────────────────────────
+
+    /** Accumulates vertices part by part without per-vertex objects. */
+    static final class Builder {
+        private double[] coords = new double[64];
+        private int[] offsets = new int[8];
+        private int vertices;
+        private int parts;
+        private int partStart;
+
+        Builder add(double lat, double lng) {
+            if (vertices * 2 + 2 > coords.length) coords = Arrays.copyOf(coords, coords.length * 2);
+            coords[vertices * 2] = lat;
+            coords[vertices * 2 + 1] = lng;
+            vertices++;
+            return this;
+        }
+
+        /** Closes the current part; does nothing if it has no vertices. */
+        Builder endPart() {
+            if (vertices == partStart) return this;
+            if (parts + 2 > offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[++parts] = vertices;
+            partStart = vertices;
+            return this;
+        }
+
+        PackedGeometry build() {
+            endPart();
+            return new PackedGeometry(Arrays.copyOf(coords, vertices * 2), Arrays.copyOf(offsets, parts + 1));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Static R-tree over feature bounding boxes, bulk-loaded with Sort-Tile-Recursive
+ * packing and stored in flat arrays.
+ *
+ * Leaves are ordered by STR (sorted into longitude slices, each slice sorted by
+ * latitude) and every upper level groups NODE_SIZE consecutive nodes of the level
+ * below. A point query only descends into nodes whose box contains the point.
+ */
+final class PackedRTree {
+
+    private static final int NODE_SIZE = 16;
+
+    // Node boxes for all levels, leaves first: minLat, minLng, maxLat, maxLng
+    private final double[] boxes;
+    // Leaf level: item index. Upper levels: position of the first child.
+    private final int[] refs;
+    // levelEnds[l] is one past the last node position of level l
+    private final int[] levelEnds;
+
+    private PackedRTree(double[] boxes, int[] refs, int[] levelEnds) {
+        this.boxes = boxes;
+        this.refs = refs;
+        this.levelEnds = levelEnds;
+    }
+
+    /** Indexes the bounding boxes of the given geometries; item i is shapes.get(i). */
+    static PackedRTree build(List<PackedGeometry> shapes) {
+        int n = shapes.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+
+        // STR: sort by center longitude, cut into vertical slices, sort each slice by center latitude
+        Arrays.sort(order, (a, b) -> Double.compare(centerLng(shapes.get(a)), centerLng(shapes.get(b))));
+        int leafNodes = (n + NODE_SIZE - 1) / NODE_SIZE;
+        int sliceSize = NODE_SIZE * (int) Math.ceil(Math.sqrt(Math.max(1, leafNodes)));
+        for (int from = 0; from < n; from += sliceSize) {
+            Arrays.sort(order, from, Math.min(n, from + sliceSize),
+                    (a, b) -> Double.compare(centerLat(shapes.get(a)), centerLat(shapes.get(b))));
+        }
+
+        // Count nodes over all levels
+        int total = n, levelSize = n, levels = 1;
+        while (levelSize > 1) {
+            levelSize = (levelSize + NODE_SIZE - 1) / NODE_SIZE;
+            total += levelSize;
+            levels++;
+        }
+
+        double[] boxes = new double[total * 4];
+        int[] refs = new int[total];
+        int[] levelEnds = new int[levels];
+
+        for (int i = 0; i < n; i++) {
+            PackedGeometry g = shapes.get(order[i]);
+            boxes[i * 4]     = g.minLat;
+            boxes[i * 4 + 1] = g.minLng;
+            boxes[i * 4 + 2] = g.maxLat;
+            boxes[i * 4 + 3] = g.maxLng;
+            refs[i] = order[i];
+        }
+        levelEnds[0] = n;
+
+        int levelStart = 0, pos = n;
+        for (int l = 1; l < levels; l++) {
+            int levelEnd = levelEnds[l - 1];
+            for (int child = levelStart; child < levelEnd; child += NODE_SIZE) {
+                double minLat = Double.POSITIVE_INFINITY, minLng = Double.POSITIVE_INFINITY;
+                double maxLat = Double.NEGATIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+                for (int c = child; c < Math.min(levelEnd, child + NODE_SIZE); c++) {
+                    minLat = Math.min(minLat, boxes[c * 4]);
+                    minLng = Math.min(minLng, boxes[c * 4 + 1]);
+                    maxLat = Math.max(maxLat, boxes[c * 4 + 2]);
+                    maxLng = Math.max(maxLng, boxes[c * 4 + 3]);
+                }
+                boxes[pos * 4]     = minLat;
+                boxes[pos * 4 + 1] = minLng;
+                boxes[pos * 4 + 2] = maxLat;
+                boxes[pos * 4 + 3] = maxLng;
+                refs[pos] = child;
+                pos++;
+            }
+            levelStart = levelEnd;
+            levelEnds[l] = pos;
+        }
+        return new PackedRTree(boxes, refs, levelEnds);
+    }
+
+    /** Calls visitor with the index of every item whose bounding box contains the point. */
+    void search(double lat, double lng, IntConsumer visitor) {
+        if (refs.length == 0) return;
+        int[] stack = new int[levelEnds.length * NODE_SIZE];
+        int top = 0;
+        int root = refs.length - 1;
+        if (!contains(root, lat, lng)) return;
+        stack[top++] = root;
+
+        while (top > 0) {
+            int node = stack[--top];
+            if (node < levelEnds[0]) {
+                visitor.accept(refs[node]);
+                continue;
+            }
+            int level = levelOf(node);
+            int first = refs[node], end = Math.min(first + NODE_SIZE, levelEnds[level - 1]);
+            for (int c = first; c < end; c++) {
+                if (contains(c, lat, lng)) stack[top++] = c;
+            }
+        }
+    }
+
+    private boolean contains(int node, double lat, double lng) {
+        int b = node * 4;
+        return lat >= boxes[b] && lng >= boxes[b + 1] && lat <= boxes[b + 2] && lng <= boxes[b + 3];
+    }
+
+    private int levelOf(int node) {
+        int level = 0;
+        while (node >= levelEnds[level]) level++;
+        return level;
+    }
+
+    private static double centerLat(PackedGeometry g) { return (g.minLat + g.maxLat) / 2; }
+    private static double centerLng(PackedGeometry g) { return (g.minLng + g.maxLng) / 2; }
+}
@@ -0,0 +1,144 @@
+import org.jxmapviewer.viewer.TileFactoryInfo;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical grid clustering of a point layer, one level per zoom.
+ *
+ * At the most detailed zooms (the first INDIVIDUAL_ZOOMS levels) every point
+ * stands alone. Each coarser level halves the previous level's positions, as the
+ * map does, and merges the clusters that land in the same radiusPx grid cell into
+ * one, placed at their count-weighted centre. So a cluster never spans more than
+ * one cell, a view holds at most (width / radiusPx) x (height / radiusPx) of them
+ * whatever the number of points, and zooming in splits clusters into the ones
+ * they were made from. Levels are built on first use and kept. Only touched from
+ * the EDT.
+ */
+final class PointClusters {
+
+    private static final int INDIVIDUAL_ZOOMS = 3;
+
+    /** Clusters at one zoom level, sorted by whole world-pixel x. */
+    static final class Level {
+        final double[] x, y;
+        final int[] count;
+        final int size;
+
+        Level(double[] x, double[] y, int[] count, int size) {
+            this.x = x;
+            this.y = y;
+            this.count = count;
+            this.size = size;
+        }
+
+        /** Index of the first cluster whose whole-pixel x is at least minX's. */
+        int from(double minX) {
+            return search(Math.floor(minX));
+        }
+
+        /** Index past the last cluster whose whole-pixel x is at most maxX's. */
+        int to(double maxX) {
+            return search(Math.floor(maxX) + 1);
+        }
+
+        private int search(double pixel) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (Math.floor(x[mid]) < pixel) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    private final PackedGeometry points;
+    private final double radiusPx;
+    private TileFactoryInfo builtFor;
+    private Level[] levels;
+
+    PointClusters(PackedGeometry points, double radiusPx) {
+        this.points = points;
+        this.radiusPx = radiusPx;
+    }
+
+    PackedGeometry points() {
+        return points;
+    }
+
+    /** The clusters to draw at this zoom. */
+    Level at(TileFactoryInfo info, int zoom) {
+        if (info != builtFor) {
+            levels = new Level[info.getMaximumZoomLevel() + 1];
+            builtFor = info;
+        }
+        if (levels[zoom] == null) {
+            int finest = info.getMinimumZoomLevel();
+            levels[zoom] = zoom < finest + INDIVIDUAL_ZOOMS
+                    ? individual(points.worldCoords(info, zoom))
+                    : merge(at(info, zoom - 1));
+        }
+        return levels[zoom];
+    }
+
+    private Level individual(double[] xy) {
+        int n = points.vertexCount();
+        double[] x = new double[n], y = new double[n];
+        int[] count = new int[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = xy[i * 2];
+            y[i] = xy[i * 2 + 1];
+            count[i] = 1;
+        }
+        return sorted(x, y, count, n);
+    }
+
+    /**
+     * The next coarser level: positions halved, clusters sharing a grid cell merged.
+     * The finer level is already in x order, so it is walked one grid column at a
+     * time and only the rows within a column need sorting.
+     */
+    private Level merge(Level finer) {
+        int n = finer.size, clusters = 0;
+        double cellPx = radiusPx * 2; // a cell at this zoom, in the finer level's pixels
+        double[] sumX = new double[n], sumY = new double[n];
+        int[] count = new int[n];
+        long[] rows = new long[n];
+        for (int start = 0, end; start < n; start = end) {
+            // Columns from the whole pixel the level is sorted by, so they never go backwards
+            double column = Math.floor(Math.floor(finer.x[start]) / cellPx);
+            for (end = start; end < n && Math.floor(Math.floor(finer.x[end]) / cellPx) == column; end++) {
+                rows[end - start] = (long) Math.floor(finer.y[end] / cellPx) << 32 | end;
+            }
+            Arrays.sort(rows, 0, end - start);
+            for (int k = 0; k < end - start; k++) {
+                if (k == 0 || rows[k] >> 32 != rows[k - 1] >> 32) clusters++;
+                int i = (int) rows[k], c = clusters - 1;
+                sumX[c] += finer.x[i] / 2 * finer.count[i];
+                sumY[c] += finer.y[i] / 2 * finer.count[i];
+                count[c] += finer.count[i];
+            }
+        }
+        for (int c = 0; c < clusters; c++) {
+            sumX[c] /= count[c];
+            sumY[c] /= count[c];
+        }
+        return sorted(sumX, sumY, count, clusters);
+    }
+
+    /** Orders by whole pixel with a primitive sort: the pixel in the high bits, the index in the low. */
+    private static Level sorted(double[] x, double[] y, int[] count, int n) {
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) keys[i] = (long) Math.floor(x[i]) << 32 | i;
+        Arrays.sort(keys);
+        double[] sx = new double[n], sy = new double[n];
+        int[] sc = new int[n];
+        for (int k = 0; k < n; k++) {
+            int i = (int) keys[k];
+            sx[k] = x[i];
+            sy[k] = y[i];
+            sc[k] = count[i];
+        }
+        return new Level(sx, sy, sc, n);
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Static 2-d tree over points (lat, lng), stored implicitly in flat arrays.
+ *
+ * Built by median splits that alternate between latitude and longitude: the
+ * middle position of every range holds the splitting point, the positions
+ * before it its lower subtree and those after it the upper one. A box query
+ * only descends into the sides of a split that the box reaches.
+ */
+final class PointKdTree {
+
+    // Points in tree order, and the caller's index of each
+    private final double[] lats;
+    private final double[] lngs;
+    private final int[] ids;
+
+    private PointKdTree(double[] lats, double[] lngs, int[] ids) {
+        this.lats = lats;
+        this.lngs = lngs;
+        this.ids = ids;
+    }
+
+    /** Indexes the first n points; item i is (lats[i], lngs[i]). The arrays are not kept. */
+    static PointKdTree build(double[] lats, double[] lngs, int n) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) ids[i] = i;
+        split(ids, lats, lngs, 0, n, true);
+
+        double[] treeLats = new double[n], treeLngs = new double[n];
+        for (int p = 0; p < n; p++) {
+            treeLats[p] = lats[ids[p]];
+            treeLngs[p] = lngs[ids[p]];
+        }
+        return new PointKdTree(treeLats, treeLngs, ids);
+    }
+
+    private static void split(int[] ids, double[] lats, double[] lngs, int lo, int hi, boolean byLat) {
+        if (hi - lo < 2) return;
+        int mid = (lo + hi) >>> 1;
+        select(ids, byLat ? lats : lngs, lo, hi - 1, mid);
+        split(ids, lats, lngs, lo, mid, !byLat);
+        split(ids, lats, lngs, mid + 1, hi, !byLat);
+    }
+
+    /** Quickselect: puts the k-th smallest key of ids[lo..hi] at k, smaller keys before it. */
+    private static void select(int[] ids, double[] key, int lo, int hi, int k) {
+        while (hi > lo) {
+            double pivot = key[ids[(lo + hi) >>> 1]];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[ids[i]] < pivot) i++;
+                while (key[ids[j]] > pivot) j--;
+                if (i <= j) {
+                    int t = ids[i]; ids[i] = ids[j]; ids[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /** Calls visitor with the index of every point inside the box, edges included. */
+    void search(double minLat, double minLng, double maxLat, double maxLng, IntConsumer visitor) {
+        search(0, ids.length, true, minLat, minLng, maxLat, maxLng, visitor);
+    }
+
+    private void search(int lo, int hi, boolean byLat, double minLat, double minLng, double maxLat, double maxLng,
+                        IntConsumer visitor) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double lat = lats[mid], lng = lngs[mid];
+            if (lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng) visitor.accept(ids[mid]);
+
+            double v = byLat ? lat : lng;
+            boolean lower = (byLat ? minLat : minLng) <= v;
+            boolean upper = (byLat ? maxLat : maxLng) >= v;
+            byLat = !byLat;
+            // Recurse into one side and loop on the other
+            if (lower && upper) search(lo, mid, byLat, minLat, minLng, maxLat, maxLng, visitor);
+            if (upper) lo = mid + 1;
+            else if (lower) hi = mid;
+            else return;
+        }
+    }
+}
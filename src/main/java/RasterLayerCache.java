@@ -0,0 +1,130 @@
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches a static overlay layer as world-aligned raster tiles, per zoom level.
+ *
+ * The layer is rendered into TILE_SIZE images the first time each tile becomes
+ * visible at a zoom; later repaints just composite the cached images. Tiles are
+ * kept in an LRU so zooming back to a level reuses them. The LRU holds twice the
+ * tiles the viewport covers, recomputed as the window is resized, so a large
+ * window never evicts tiles it is still showing. Tiles the layer does not touch
+ * share one sentinel instead of holding an image. Only touched from the EDT.
+ */
+final class RasterLayerCache {
+
+    /**
+     * Draws the layer for one tile; g is already translated into world-pixel space.
+     * Returns false if nothing in the layer touches the tile.
+     */
+    interface LayerRenderer {
+        boolean render(Graphics2D g, Rectangle worldTile, int zoom, TileFactoryInfo info);
+    }
+
+    static final int TILE_SIZE = 256;
+    private static final BufferedImage BLANK = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+    private final LayerRenderer renderer;
+    private final Map<Long, BufferedImage> tiles;
+    private final int minTiles;
+    private int maxTiles;
+    private TileFactoryInfo cachedInfo;
+    private double cachedScale = 1;
+    int tilesRendered;
+
+    /** minTiles is kept even for a small viewport. */
+    RasterLayerCache(int minTiles, LayerRenderer renderer) {
+        this.renderer = renderer;
+        this.minTiles = minTiles;
+        this.maxTiles = minTiles;
+        this.tiles = new LinkedHashMap<>(minTiles * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+                return size() > maxTiles;
+            }
+        };
+    }
+
+    /** Drops every cached tile, e.g. after the layer's data changed. */
+    void invalidate() {
+        tiles.clear();
+    }
+
+    /**
+     * Composites the tiles covering the clip area, rendering any that are not cached
+     * yet, or with cachedOnly leaving those out.
+     */
+    void paint(Graphics2D g, JXMapViewer map, boolean cachedOnly) {
+        TileFactoryInfo info = map.getTileFactory().getInfo();
+        // Render at device resolution so HiDPI screens don't get upscaled tiles
+        double scale = g.getTransform().getScaleX();
+        if (info != cachedInfo || scale != cachedScale) {
+            tiles.clear();
+            cachedInfo = info;
+            cachedScale = scale;
+        }
+
+        int zoom = map.getZoom();
+        Rectangle viewport = map.getViewportBounds();
+        fitTo(viewport);
+        int vx = viewport.x, vy = viewport.y;
+        Rectangle world = g.getClipBounds(); // a fresh copy, shifted in place into world pixels
+        if (world == null) world = viewport;
+        else world.translate(vx, vy);
+
+        int tx0 = Math.floorDiv(world.x, TILE_SIZE), tx1 = Math.floorDiv(world.x + world.width - 1, TILE_SIZE);
+        int ty0 = Math.floorDiv(world.y, TILE_SIZE), ty1 = Math.floorDiv(world.y + world.height - 1, TILE_SIZE);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                long key = ((long) zoom << 56) | ((long) (tx & 0xFFFFFFF) << 28) | (ty & 0xFFFFFFF);
+                BufferedImage img = tiles.get(key);
+                if (img == null) {
+                    if (cachedOnly) continue;
+                    img = renderTile(g, tx, ty, zoom, info, scale);
+                    tiles.put(key, img);
+                }
+                if (img != BLANK) {
+                    g.drawImage(img, tx * TILE_SIZE - vx, ty * TILE_SIZE - vy,
+                            TILE_SIZE, TILE_SIZE, null);
+                }
+            }
+        }
+    }
+
+    /** Sizes the LRU to twice the tiles an unaligned viewport of this size can touch. */
+    private void fitTo(Rectangle viewport) {
+        int visible = (viewport.width / TILE_SIZE + 2) * (viewport.height / TILE_SIZE + 2);
+        int max = Math.max(minTiles, 2 * visible);
+        if (max == maxTiles) return;
+        maxTiles = max;
+        for (Iterator<Long> it = tiles.keySet().iterator(); tiles.size() > maxTiles && it.hasNext(); ) {
+            it.next();
+            it.remove(); // least recently used first
+        }
+    }
+
+    private BufferedImage renderTile(Graphics2D target, int tx, int ty, int zoom, TileFactoryInfo info, double scale) {
+        int px = (int) Math.ceil(TILE_SIZE * scale);
+        BufferedImage img = new BufferedImage(px, px, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        boolean drew;
+        try {
+            g.setRenderingHints(target.getRenderingHints());
+            g.setTransform(AffineTransform.getScaleInstance(scale, scale));
+            g.translate(-tx * TILE_SIZE, -ty * TILE_SIZE);
+            drew = renderer.render(g, new Rectangle(tx * TILE_SIZE, ty * TILE_SIZE, TILE_SIZE, TILE_SIZE), zoom, info);
+        } finally {
+            g.dispose();
+        }
+        tilesRendered++;
+        return drew ? img : BLANK;
+    }
+}
@@ -0,0 +1,131 @@
+import org.jxmapviewer.viewer.TileFactoryInfo;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.BitSet;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Regions merged into world-pixel paths per fill group (a claim state), plus, if
+ * asked for, one path of every outline, so a frame fills each group and strokes
+ * the outlines with a few calls instead of one call, and one graphics setup, per
+ * region. Painters that draw outlines some other way (CityOverlay has them in its
+ * raster base layer) leave them out and skip rebuilding that path.
+ *
+ * Each group is merged in chunks of CHUNK consecutive regions, so when a region
+ * moves to another group (moved(i)) only its chunk of the old and the new group
+ * is rebuilt, not every region of the unclaimed majority. Everything is rebuilt
+ * from the regions' cached per-zoom paths when the zoom changes or invalidate()
+ * says many regions moved. Group paths are filled even-odd, like each region's
+ * own path, so holes stay empty; regions that overlap each other within a group
+ * would cancel out, which administrative boundaries do not. Only touched from
+ * the EDT.
+ */
+final class RegionBatch {
+
+    static final int CHUNK = 32; // regions per merged path
+
+    private final int groups;
+    private final IntFunction<PackedGeometry> rings;
+    private final IntUnaryOperator group;
+    private final Path2D.Double outlines; // null unless built
+
+    // One path per group and chunk, at chunk * groups + group
+    private Path2D.Double[] fills = new Path2D.Double[0];
+    private Rectangle2D[] fillBounds = new Rectangle2D[0];
+    private int[] builtGroup = new int[0]; // the group each region is merged into
+    private final BitSet dirty = new BitSet(); // fills to rebuild at the next update
+
+    private TileFactoryInfo builtFor;
+    private int builtZoom = -1;
+    private int builtCount = -1;
+    private boolean stale = true;
+
+    /**
+     * rings(i) and group(i) give region i's geometry and its fill group, 0 to
+     * groups-1; withOutlines also merges every region into outlines().
+     */
+    RegionBatch(int groups, IntFunction<PackedGeometry> rings, IntUnaryOperator group, boolean withOutlines) {
+        this.groups = groups;
+        this.rings = rings;
+        this.group = group;
+        this.outlines = withOutlines ? new Path2D.Double(Path2D.WIND_EVEN_ODD) : null;
+    }
+
+    /** Marks every group out of date, e.g. after many claims changed at once. */
+    void invalidate() {
+        stale = true;
+    }
+
+    /** Region i may have moved to another group, e.g. after its claim changed. */
+    void moved(int i) {
+        if (stale || i >= builtCount) return; // the next update rebuilds everything anyway
+        int from = builtGroup[i], to = group.applyAsInt(i);
+        if (from == to) return;
+        builtGroup[i] = to;
+        dirty.set(i / CHUNK * groups + from);
+        dirty.set(i / CHUNK * groups + to);
+    }
+
+    /** Brings the merged paths up to date for count regions at this zoom. */
+    void update(TileFactoryInfo info, int zoom, int count) {
+        if (stale || info != builtFor || zoom != builtZoom || count != builtCount) {
+            rebuild(info, zoom, count);
+            return;
+        }
+        for (int f = dirty.nextSetBit(0); f >= 0; f = dirty.nextSetBit(f + 1)) {
+            fills[f].reset();
+            int from = f / groups * CHUNK, to = Math.min(count, from + CHUNK);
+            for (int i = from; i < to; i++) {
+                if (builtGroup[i] == f % groups) fills[f].append(rings.apply(i).worldPath(info, zoom, true), false);
+            }
+            updateBounds(f);
+        }
+        dirty.clear();
+    }
+
+    private void rebuild(TileFactoryInfo info, int zoom, int count) {
+        int paths = (count + CHUNK - 1) / CHUNK * groups;
+        if (fills.length != paths) {
+            fills = new Path2D.Double[paths];
+            fillBounds = new Rectangle2D[paths];
+            for (int f = 0; f < paths; f++) {
+                fills[f] = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+                fillBounds[f] = new Rectangle2D.Double();
+            }
+        }
+        if (builtGroup.length != count) builtGroup = new int[count];
+        for (Path2D.Double p : fills) p.reset();
+        if (outlines != null) outlines.reset();
+        for (int i = 0; i < count; i++) {
+            Path2D path = rings.apply(i).worldPath(info, zoom, true);
+            builtGroup[i] = group.applyAsInt(i);
+            fills[i / CHUNK * groups + builtGroup[i]].append(path, false);
+            if (outlines != null) outlines.append(path, false);
+        }
+        for (int f = 0; f < paths; f++) updateBounds(f);
+        dirty.clear();
+        builtFor = info;
+        builtZoom = zoom;
+        builtCount = count;
+        stale = false;
+    }
+
+    private void updateBounds(int f) {
+        if (fills[f].getCurrentPoint() == null) fillBounds[f].setRect(0, 0, -1, -1);
+        else fillBounds[f].setRect(fills[f].getBounds2D());
+    }
+
+    int groups()                             { return groups; }
+    /** Paths each group is merged into, as of the last update. */
+    int chunks()                             { return fills.length / groups; }
+    Path2D fill(int g, int chunk)            { return fills[chunk * groups + g]; }
+    /** World-pixel bounds of one of group g's paths; empty (negative size) when no region is in it. */
+    Rectangle2D fillBounds(int g, int chunk) { return fillBounds[chunk * groups + g]; }
+    /** Every region's outline; only built when the batch was made withOutlines. */
+    Path2D outlines() {
+        if (outlines == null) throw new IllegalStateException("RegionBatch built without outlines");
+        return outlines;
+    }
+}
@@ -0,0 +1,203 @@
+import java.util.PriorityQueue;
+
+/**
+ * Figures derived from a region's rings, computed once when the region is loaded
+ * so that painting and hover popups never walk the vertices for them.
+ *
+ * Rings follow PackedGeometry's even-odd rule: a ring inside an odd number of
+ * other rings is a hole, and its area is subtracted.
+ */
+final class RegionMetrics {
+
+    // Radius of the sphere with the WGS84 ellipsoid's surface area
+    private static final double AUTHALIC_RADIUS_KM = 6371.0072;
+    private static final double SQ_MI_PER_SQ_KM = 0.386102;
+    // Label search stops once no cell can beat the best point by more than this share of the bbox
+    private static final double LABEL_PRECISION = 1e-2;
+
+    /** Area on the sphere, holes subtracted. */
+    final double areaSqKm;
+    /** Pole of inaccessibility: the interior point farthest from any edge, where a label fits best. */
+    final double labelLat, labelLng;
+    final double minLat, minLng, maxLat, maxLng;
+    final int vertexCount;
+
+    private RegionMetrics(PackedGeometry rings, double areaSqKm, double labelLat, double labelLng) {
+        this.areaSqKm = areaSqKm;
+        this.labelLat = labelLat;
+        this.labelLng = labelLng;
+        this.minLat = rings.minLat;
+        this.minLng = rings.minLng;
+        this.maxLat = rings.maxLat;
+        this.maxLng = rings.maxLng;
+        this.vertexCount = rings.vertexCount();
+    }
+
+    static RegionMetrics of(PackedGeometry rings) {
+        if (rings.isEmpty()) return new RegionMetrics(rings, 0, 0, 0);
+        boolean[] holes = new boolean[rings.partCount()];
+        double area = 0;
+        for (int p = 0; p < holes.length; p++) {
+            holes[p] = isHole(rings, p);
+            double a = Math.abs(sphericalArea(rings, p));
+            area += holes[p] ? -a : a;
+        }
+        double[] label = new LabelSearch(rings, holes).run();
+        return new RegionMetrics(rings, Math.max(0, area), label[0], label[1]);
+    }
+
+    double areaSqMiles() {
+        return areaSqKm * SQ_MI_PER_SQ_KM;
+    }
+
+    // ── Area ─────────────────────────────────────────────────────────────────
+
+    /** Signed area of one ring on the sphere (Chamberlain & Duquette), in km². */
+    private static double sphericalArea(PackedGeometry g, int part) {
+        int start = g.partStart(part), n = g.partEnd(part) - start;
+        if (n < 3) return 0;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            int prev = start + (i + n - 1) % n, cur = start + i, next = start + (i + 1) % n;
+            sum += Math.toRadians(g.lng(next) - g.lng(prev)) * Math.sin(Math.toRadians(g.lat(cur)));
+        }
+        return sum * AUTHALIC_RADIUS_KM * AUTHALIC_RADIUS_KM / 2;
+    }
+
+    /** Whether the ring's first vertex lies inside an odd number of the other rings. */
+    private static boolean isHole(PackedGeometry g, int part) {
+        int v = g.partStart(part);
+        double lat = g.lat(v), lng = g.lng(v);
+        boolean hole = false;
+        for (int p = 0; p < g.partCount(); p++) {
+            if (p != part && ringContains(g, p, lat, lng)) hole = !hole;
+        }
+        return hole;
+    }
+
+    private static boolean ringContains(PackedGeometry g, int part, double lat, double lng) {
+        boolean inside = false;
+        int start = g.partStart(part), end = g.partEnd(part);
+        for (int i = start, j = end - 1; i < end; j = i++) {
+            double latI = g.lat(i), latJ = g.lat(j);
+            if ((latI > lat) != (latJ > lat)
+                    && lng < (g.lng(j) - g.lng(i)) * (lat - latI) / (latJ - latI) + g.lng(i)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // ── Label point ──────────────────────────────────────────────────────────
+
+    /**
+     * Pole of inaccessibility by grid refinement (Agafonkin's polylabel): cover the
+     * bbox with square cells, then keep splitting the cell whose centre distance plus
+     * half-diagonal could still beat the best point found. Runs in a plane where one
+     * degree of longitude is shrunk by cos(mid latitude), so distances are even in
+     * both directions.
+     */
+    private static final class LabelSearch {
+        private final PackedGeometry g;
+        private final boolean[] holes;
+        private final double kx; // x = lng * kx, y = lat
+
+        LabelSearch(PackedGeometry g, boolean[] holes) {
+            this.g = g;
+            this.holes = holes;
+            this.kx = Math.cos(Math.toRadians((g.minLat + g.maxLat) / 2));
+        }
+
+        /** lat, lng of the label point. */
+        double[] run() {
+            double minX = g.minLng * kx, maxX = g.maxLng * kx, minY = g.minLat, maxY = g.maxLat;
+            double width = maxX - minX, height = maxY - minY, cellSize = Math.min(width, height);
+            if (cellSize == 0) return new double[] {(minY + maxY) / 2, (minX + maxX) / 2 / kx};
+            double precision = Math.max(width, height) * LABEL_PRECISION;
+
+            PriorityQueue<Cell> queue = new PriorityQueue<>((a, b) -> Double.compare(b.max, a.max));
+            for (double x = minX; x < maxX; x += cellSize) {
+                for (double y = minY; y < maxY; y += cellSize) {
+                    queue.add(cell(x + cellSize / 2, y + cellSize / 2, cellSize / 2));
+                }
+            }
+            Cell best = centroidCell();
+            Cell middle = cell(minX + width / 2, minY + height / 2, 0);
+            if (middle.d > best.d) best = middle;
+
+            while (!queue.isEmpty()) {
+                Cell c = queue.poll();
+                if (c.d > best.d) best = c;
+                if (c.max - best.d <= precision) continue;
+                double h = c.h / 2;
+                queue.add(cell(c.x - h, c.y - h, h));
+                queue.add(cell(c.x + h, c.y - h, h));
+                queue.add(cell(c.x - h, c.y + h, h));
+                queue.add(cell(c.x + h, c.y + h, h));
+            }
+            return new double[] {best.y, best.x / kx};
+        }
+
+        private Cell cell(double x, double y, double h) {
+            return new Cell(x, y, h, signedDistance(x, y));
+        }
+
+        /** Area centroid of the rings, holes subtracted; the bbox centre if they have no area. */
+        private Cell centroidCell() {
+            double area = 0, cx = 0, cy = 0;
+            for (int p = 0; p < g.partCount(); p++) {
+                int start = g.partStart(p), end = g.partEnd(p);
+                double a = 0, sx = 0, sy = 0;
+                for (int i = start, j = end - 1; i < end; j = i++) {
+                    double xi = g.lng(i) * kx, yi = g.lat(i), xj = g.lng(j) * kx, yj = g.lat(j);
+                    double f = xj * yi - xi * yj;
+                    a += f;
+                    sx += (xi + xj) * f;
+                    sy += (yi + yj) * f;
+                }
+                // Weigh each ring by its role, whatever its winding in the data
+                double k = (holes[p] ? -1 : 1) * Math.signum(a);
+                area += k * a * 3;
+                cx += k * sx;
+                cy += k * sy;
+            }
+            if (area == 0) return cell((g.minLng * kx + g.maxLng * kx) / 2, (g.minLat + g.maxLat) / 2, 0);
+            return cell(cx / area, cy / area, 0);
+        }
+
+        /** Distance to the nearest edge, negative outside the region. */
+        private double signedDistance(double x, double y) {
+            double min = Double.MAX_VALUE;
+            for (int p = 0; p < g.partCount(); p++) {
+                int start = g.partStart(p), end = g.partEnd(p);
+                for (int i = start, j = end - 1; i < end; j = i++) {
+                    min = Math.min(min, segmentDistanceSq(x, y,
+                            g.lng(i) * kx, g.lat(i), g.lng(j) * kx, g.lat(j)));
+                }
+            }
+            double d = Math.sqrt(min);
+            return g.contains(y, x / kx) ? d : -d;
+        }
+    }
+
+    /** Squared distance from p to the segment a-b, in the plane of the arguments. */
+    static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double t = dx == 0 && dy == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / (dx * dx + dy * dy);
+        t = Math.max(0, Math.min(1, t));
+        double ex = ax + t * dx - px, ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    private static final class Cell {
+        final double x, y, h, d, max;
+
+        Cell(double x, double y, double h, double d) {
+            this.x = x;
+            this.y = y;
+            this.h = h;
+            this.d = d;
+            this.max = d + h * Math.sqrt(2);
+        }
+    }
+}
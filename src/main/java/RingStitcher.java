@@ -0,0 +1,162 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Joins the way members of a boundary relation end to end into closed rings.
+ *
+ * Way endpoints are hashed by TOLERANCE-sized grid cell, so finding the way that
+ * continues a chain only looks at the 3x3 cells around the chain's open end
+ * instead of scanning every remaining way. Stitching is roughly linear in the
+ * number of ways.
+ */
+final class RingStitcher {
+
+    /** Endpoints closer than this in both latitude and longitude are the same node. */
+    static final double TOLERANCE = 0.0001;
+
+    private final List<double[]> ways;
+    private final boolean[] used;
+    // Endpoint e is the start (e even) or end (e odd) of way e / 2, chained per grid cell
+    private final Map<Long, Integer> cellHeads = new HashMap<>();
+    private final int[] nextInCell;
+
+    private RingStitcher(List<double[]> ways) {
+        this.ways = ways;
+        this.used = new boolean[ways.size()];
+        this.nextInCell = new int[ways.size() * 2];
+        for (int e = 0; e < nextInCell.length; e++) {
+            double[] way = ways.get(e / 2);
+            int at = e % 2 == 0 ? 0 : way.length - 2;
+            Integer head = cellHeads.put(cell(way[at], way[at + 1]), e);
+            nextInCell[e] = head == null ? -1 : head;
+        }
+    }
+
+    /**
+     * Stitches ways (interleaved lat,lng, at least two vertices each) into rings.
+     * Each ring ends on exactly its first vertex. A chain that can't be closed
+     * because members are missing is closed with a straight edge.
+     */
+    static List<double[]> stitch(List<double[]> ways) {
+        List<double[]> usable = new ArrayList<>(ways.size());
+        for (double[] way : ways) if (way.length >= 4) usable.add(way);
+        return new RingStitcher(usable).stitchAll();
+    }
+
+    private List<double[]> stitchAll() {
+        List<double[]> rings = new ArrayList<>();
+        for (int w = 0; w < ways.size(); w++) {
+            if (used[w]) continue;
+            used[w] = true;
+            Chain chain = new Chain(ways.get(w));
+            extend(chain);
+            if (!chain.isClosed()) {
+                // Dead end: the ring may continue from the other end of the first way
+                chain.reverse();
+                extend(chain);
+            }
+            double[] ring = chain.toRing();
+            if (ring.length >= 8) rings.add(ring); // at least a triangle plus the closing vertex
+        }
+        return rings;
+    }
+
+    /** Appends matching ways to the chain's tail until it closes or runs out of neighbours. */
+    private void extend(Chain chain) {
+        while (!chain.isClosed()) {
+            double lat = chain.tailLat(), lng = chain.tailLng();
+            int e = findEndpoint(lat, lng);
+            if (e < 0) return;
+            used[e / 2] = true;
+            chain.append(ways.get(e / 2), e % 2 == 1);
+        }
+    }
+
+    /** An endpoint of an unused way within TOLERANCE of the point, or -1. */
+    private int findEndpoint(double lat, double lng) {
+        long cLat = (long) Math.floor(lat / TOLERANCE), cLng = (long) Math.floor(lng / TOLERANCE);
+        for (long dLat = -1; dLat <= 1; dLat++) {
+            for (long dLng = -1; dLng <= 1; dLng++) {
+                Integer head = cellHeads.get(key(cLat + dLat, cLng + dLng));
+                for (int e = head == null ? -1 : head; e >= 0; e = nextInCell[e]) {
+                    if (used[e / 2]) continue;
+                    double[] way = ways.get(e / 2);
+                    int at = e % 2 == 0 ? 0 : way.length - 2;
+                    if (close(way[at], way[at + 1], lat, lng)) return e;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long cell(double lat, double lng) {
+        return key((long) Math.floor(lat / TOLERANCE), (long) Math.floor(lng / TOLERANCE));
+    }
+
+    private static long key(long cLat, long cLng) {
+        return (cLat << 32) ^ (cLng & 0xFFFFFFFFL);
+    }
+
+    private static boolean close(double lat1, double lng1, double lat2, double lng2) {
+        return Math.abs(lat1 - lat2) < TOLERANCE && Math.abs(lng1 - lng2) < TOLERANCE;
+    }
+
+    /** Growable interleaved lat,lng chain of joined ways. */
+    private static final class Chain {
+        double[] data;
+        int size;
+
+        Chain(double[] first) {
+            data = Arrays.copyOf(first, Math.max(16, first.length * 2));
+            size = first.length;
+        }
+
+        double tailLat() { return data[size - 2]; }
+        double tailLng() { return data[size - 1]; }
+
+        boolean isClosed() {
+            return size >= 6 && close(data[0], data[1], data[size - 2], data[size - 1]);
+        }
+
+        /** Appends a way whose start (or end, if reversed) touches the tail, skipping the shared node. */
+        void append(double[] way, boolean reversed) {
+            int n = way.length - 2;
+            if (size + n > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, size + n));
+            if (reversed) {
+                for (int k = way.length - 4; k >= 0; k -= 2, size += 2) {
+                    data[size] = way[k];
+                    data[size + 1] = way[k + 1];
+                }
+            } else {
+                System.arraycopy(way, 2, data, size, n);
+                size += n;
+            }
+        }
+
+        void reverse() {
+            for (int i = 0, j = size - 2; i < j; i += 2, j -= 2) {
+                double lat = data[i], lng = data[i + 1];
+                data[i] = data[j];
+                data[i + 1] = data[j + 1];
+                data[j] = lat;
+                data[j + 1] = lng;
+            }
+        }
+
+        /** The chain as a ring whose last vertex is exactly its first. */
+        double[] toRing() {
+            if (isClosed()) {
+                data[size - 2] = data[0];
+                data[size - 1] = data[1];
+                return Arrays.copyOf(data, size);
+            }
+            double[] ring = Arrays.copyOf(data, size + 2);
+            ring[size] = data[0];
+            ring[size + 1] = data[1];
+            return ring;
+        }
+    }
+}
@@ -1,18 +1,20 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.net.http.*;
-import java.net.URI;
 import java.net.URLEncoder;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Prompts for a town name, state code, and radius, fetches nearby towns via GeoNames
- * (filtered by state), then displays each as a 120×120 button showing name and population,
+ * (filtered by state; -Dgazetteer=<cities1000.txt> looks them up offline instead),
+ * then displays each as a 120×120 button showing name and population,
  * sorted by latitude ascending.
  * Teams can claim towns by clicking:
  *   1st click → Team 1 (green),
@@ -30,6 +32,9 @@ public class SuburbanScrambleAPI extends JFrame {
         int population;
     }
 
+    // Most nearby towns asked for (increase as needed)
+    private static final int MAX_ROWS = 50;
+
     // Track claims
     private final Map<String,int[]> t1_towns = new HashMap<>();
     private final Map<String,int[]> t2_towns = new HashMap<>();
@@ -66,78 +71,95 @@ public class SuburbanScrambleAPI extends JFrame {
             return;
         }
 
-        // 2) Geocode to get lat/lng (filtered by state)
-        double lat, lng;
-        try {
-            String query = URLEncoder.encode(townName, StandardCharsets.UTF_8);
-            String geoUrl = "http://api.geonames.org/searchJSON"
-                    + "?q=" + query
-                    + "&country=US"
-                    + "&adminCode1=" + URLEncoder.encode(stateCode, StandardCharsets.UTF_8)
-                    + "&maxRows=10"
-                    + "&username=bsam6246"; // replace
-
-            HttpClient client = HttpClient.newHttpClient();
-            String resp = client.send(
-                    HttpRequest.newBuilder(URI.create(geoUrl)).GET().build(),
-                    HttpResponse.BodyHandlers.ofString()
-            ).body();
-
-            JsonNode arr = new ObjectMapper().readTree(resp).path("geonames");
-            if (!arr.isArray() || arr.isEmpty()) {
-                JOptionPane.showMessageDialog(null,
-                        "Town not found in " + stateCode,
-                        "Error", JOptionPane.ERROR_MESSAGE);
-                System.exit(0);
+        // 2) Geocode to get lat/lng (filtered by state), then 3) find nearby towns,
+        //    off the EDT; the window is built once both have answered.
+        //    -Dgazetteer=<cities1000.txt> answers both from a local GeoNames dump.
+        String gazetteer = System.getProperty("gazetteer");
+        CompletableFuture<Map<String,int[]>> towns = gazetteer == null
+                ? fetchTowns(townName, stateCode, radiusKm)
+                : CompletableFuture.supplyAsync(
+                        () -> findTowns(Paths.get(gazetteer), townName, stateCode, radiusKm), Net.BACKGROUND);
+
+        towns.whenComplete((found, ex) -> SwingUtilities.invokeLater(() -> {
+            if (ex == null) {
+                buildUI(townName, stateCode, found);
+                return;
             }
-            JsonNode entry = arr.get(0);
-            lat = entry.get("lat").asDouble();
-            lng = entry.get("lng").asDouble();
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(null,
-                    "Geocoding failed:\n" + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            System.exit(1);
-            return;
+            Throwable cause = Net.cause(ex);
+            JOptionPane.showMessageDialog(null, cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            System.exit(cause.getCause() == null ? 0 : 1); // no match is not an error
+        }));
+    }
+
+    /** Geocodes the town with GeoNames, then asks it for towns nearby in the same state. */
+    private static CompletableFuture<Map<String,int[]>> fetchTowns(String townName, String stateCode, int radiusKm) {
+        String query = URLEncoder.encode(townName, StandardCharsets.UTF_8);
+        String geoUrl = "http://api.geonames.org/searchJSON"
+                + "?q=" + query
+                + "&country=US"
+                + "&adminCode1=" + URLEncoder.encode(stateCode, StandardCharsets.UTF_8)
+                + "&maxRows=10"
+                + "&username=bsam6246"; // replace
+
+        return Net.getJson(geoUrl, HttpCache::isGeoNamesResult)
+                .thenApply(json -> {
+                    JsonNode arr = json.path("geonames");
+                    if (!arr.isArray() || arr.isEmpty()) {
+                        throw new Net.StepFailure("Town not found in " + stateCode, null);
+                    }
+                    return arr.get(0);
+                })
+                .exceptionally(Net.failure("Geocoding failed"))
+                .thenCompose(entry -> {
+                    String nearbyUrl = String.format(
+                            "http://api.geonames.org/findNearbyPlaceNameJSON"
+                                    + "?lat=%f&lng=%f&radius=%d&cities=cities1000&maxRows=%d"
+                                    + "&country=US&adminCode1=%s&username=bsam6246",
+                            entry.get("lat").asDouble(), entry.get("lng").asDouble(), radiusKm, MAX_ROWS,
+                            URLEncoder.encode(stateCode, StandardCharsets.UTF_8)
+                    );
+                    return Net.getJson(nearbyUrl, HttpCache::isGeoNamesResult);
+                })
+                .thenApply(SuburbanScrambleAPI::parseTowns)
+                .exceptionally(Net.failure("Nearby fetch failed"));
+    }
+
+    /** The same two lookups against a local GeoNames dump, with no network. */
+    private static Map<String,int[]> findTowns(Path file, String townName, String stateCode, int radiusKm) {
+        Gazetteer places;
+        try {
+            places = Gazetteer.load(file);
+        } catch (IOException e) {
+            throw new Net.StepFailure("Gazetteer load failed:\n" + e.getMessage(), e);
         }
+        int town = places.find(townName, "US", stateCode);
+        if (town < 0) throw new Net.StepFailure("Town not found in " + stateCode, null);
 
-        // 3) Fetch nearby towns filtered by state into a HashMap
         Map<String,int[]> towns = new HashMap<>();
-        try {
-            int max_rows = 50;  // increase as needed
-            String nearbyUrl = String.format(
-                    "http://api.geonames.org/findNearbyPlaceNameJSON"
-                            + "?lat=%f&lng=%f&radius=%d&cities=cities1000&maxRows=%d"
-                            + "&country=US&adminCode1=%s&username=bsam6246",
-                    lat, lng, radiusKm, max_rows,
-                    URLEncoder.encode(stateCode, StandardCharsets.UTF_8)
-            );
-            HttpClient client = HttpClient.newHttpClient();
-            String resp = client.send(
-                    HttpRequest.newBuilder(URI.create(nearbyUrl)).GET().build(),
-                    HttpResponse.BodyHandlers.ofString()
-            ).body();
-
-            JsonNode arr = new ObjectMapper().readTree(resp).path("geonames");
-            for (JsonNode node : arr) {
-                String name = node.get("name").asText();
-                String state = node.get("adminCode1").asText();
-                int pop = node.get("population").asInt(0);
-                double lonD = node.get("lng").asDouble();
-                double latD = node.get("lat").asDouble();
-                // scale coords to int
-                int lon = (int)(lonD * 1e5);
-                int latI = (int)(latD * 1e5);
-                towns.put(name + "," + state, new int[]{pop, lon, latI});
-            }
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(null,
-                    "Nearby fetch failed:\n" + ex.getMessage(),
-                    "Error", JOptionPane.ERROR_MESSAGE);
-            System.exit(1);
-            return;
+        for (int id : places.nearby(places.lat(town), places.lng(town), radiusKm, "US", stateCode, MAX_ROWS)) {
+            putTown(towns, places.name(id), places.admin1(id), places.population(id), places.lat(id), places.lng(id));
         }
+        return towns;
+    }
+
+    /** Nearby towns filtered by state, keyed "name,state" → {population, lng·1e5, lat·1e5}. */
+    private static Map<String,int[]> parseTowns(JsonNode json) {
+        Map<String,int[]> towns = new HashMap<>();
+        for (JsonNode node : json.path("geonames")) {
+            putTown(towns, node.get("name").asText(), node.get("adminCode1").asText(),
+                    node.get("population").asInt(0), node.get("lat").asDouble(), node.get("lng").asDouble());
+        }
+        return towns;
+    }
+
+    private static void putTown(Map<String,int[]> towns, String name, String state, int pop, double latD, double lonD) {
+        // scale coords to int
+        int lon = (int)(lonD * 1e5);
+        int latI = (int)(latD * 1e5);
+        towns.put(name + "," + state, new int[]{pop, lon, latI});
+    }
 
+    private void buildUI(String townName, String stateCode, Map<String,int[]> towns) {
         // 4) We already have entries sorted by latitude ascending:
         List<Map.Entry<String,int[]>> entries = new ArrayList<>(towns.entrySet());
         entries.sort(Comparator.comparingInt((Map.Entry<String,int[]> e) -> e.getValue()[2])
@@ -1,26 +1,21 @@
 import org.jxmapviewer.JXMapViewer;
 import org.jxmapviewer.OSMTileFactoryInfo;
-import org.jxmapviewer.viewer.DefaultTileFactory;
 import org.jxmapviewer.viewer.GeoPosition;
-import org.jxmapviewer.viewer.TileFactoryInfo;
-import org.jxmapviewer.painter.CompoundPainter;
+import org.jxmapviewer.viewer.util.GeoUtil;
 import org.jxmapviewer.painter.Painter;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
-import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class SuburbanScrambleMAP extends JFrame {
 
@@ -29,19 +24,25 @@ public class SuburbanScrambleMAP extends JFrame {
     /** One town/municipality fetched from Overpass */
     static class TownRegion {
         String name;
-        List<List<GeoPosition>> rings = new ArrayList<>(); // outer boundary points
+        PackedGeometry rings = PackedGeometry.EMPTY; // outer boundary points
         int claimState = 0; // 0 = unclaimed, 1 = team1, 2 = team2
         int population;
         double area;
+        RegionMetrics metrics; // set when the town is built from Overpass data
     }
 
     // Claim maps (name → region) mirroring API.java
     private final Map<String, TownRegion> t1_towns = new HashMap<>();
     private final Map<String, TownRegion> t2_towns = new HashMap<>();
     private final List<TownRegion> regions = new ArrayList<>();
+    private PackedRTree regionIndex;
 
-    // The map widget
+    // The map widget, and its tile factory (created up front so tiles can be prefetched)
+    private static final int INITIAL_ZOOM = 7;
+    private static final int MAP_WIDTH = 900, MAP_HEIGHT = 650;
     private JXMapViewer mapViewer;
+    private final TileScheduler tileFactory = TileStore.shared().factory(
+            new OSMTileFactoryInfo("OpenStreetMap", "https://tile.openstreetmap.org"));
 
     // ── Constructor ─────────────────────────────────────────────────────────
 
@@ -71,113 +72,89 @@ public class SuburbanScrambleMAP extends JFrame {
             return;
         }
 
-        // 2) Geocode with GeoNames (same pattern as API.java)
-        double centerLat, centerLng;
-        try {
-            String geoUrl = "http://api.geonames.org/searchJSON"
-                    + "?q=" + URLEncoder.encode(townName, StandardCharsets.UTF_8)
-                    + "&country=US"
-                    + "&adminCode1=" + URLEncoder.encode(stateCode, StandardCharsets.UTF_8)
-                    + "&maxRows=1&username=bsam6246";
-
-            String resp = HttpClient.newHttpClient().send(
-                    HttpRequest.newBuilder(URI.create(geoUrl)).GET().build(),
-                    HttpResponse.BodyHandlers.ofString()).body();
-
-            JsonNode entry = new ObjectMapper().readTree(resp)
-                    .path("geonames").get(0);
-            centerLat = entry.get("lat").asDouble();
-            centerLng = entry.get("lng").asDouble();
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(null, "Geocoding failed:\n" + ex.getMessage());
-            return;
-        }
-
-        // 3) Fetch town boundaries from Overpass
-        try {
-            fetchBoundaries(centerLat, centerLng, radiusMeters);
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(null, "Overpass fetch failed:\n" + ex.getMessage());
-            return;
-        }
-
-        // 4) Build the GUI
-        buildUI(centerLat, centerLng, townName, stateCode);
+        // 2) Geocode with GeoNames, then fetch town boundaries from Overpass, off the EDT.
+        //    Basemap tiles around the town start loading as soon as its position is known.
+        String geoUrl = "http://api.geonames.org/searchJSON"
+                + "?q=" + URLEncoder.encode(townName, StandardCharsets.UTF_8)
+                + "&country=US"
+                + "&adminCode1=" + URLEncoder.encode(stateCode, StandardCharsets.UTF_8)
+                + "&maxRows=1&username=bsam6246";
+
+        Net.getJson(geoUrl, HttpCache::isGeoNamesResult)
+                .thenApply(json -> {
+                    JsonNode entry = json.path("geonames").path(0);
+                    if (entry.isMissingNode()) {
+                        throw new Net.StepFailure("Town not found in " + stateCode, null);
+                    }
+                    GeoPosition center = new GeoPosition(entry.get("lat").asDouble(), entry.get("lng").asDouble());
+                    SwingUtilities.invokeLater(() -> prefetchTiles(center));
+                    return center;
+                })
+                .exceptionally(Net.failure("Geocoding failed"))
+                .thenApplyAsync(center -> {
+                    fetchBoundaries(center.getLatitude(), center.getLongitude(), radiusMeters);
+                    regionIndex = PackedRTree.build(regions.stream().map(r -> r.rings).toList());
+                    return center;
+                }, Net.BACKGROUND)
+                .exceptionally(Net.failure("Overpass fetch failed"))
+                // 3) Build the GUI
+                .whenComplete((center, ex) -> SwingUtilities.invokeLater(() -> {
+                    if (ex != null) JOptionPane.showMessageDialog(null, Net.cause(ex).getMessage());
+                    else buildUI(center, townName, stateCode);
+                }));
     }
 
     // ── Overpass fetch ───────────────────────────────────────────────────────
 
     /**
-     * Queries Overpass for admin_level=8 boundaries within radiusMeters of (lat,lng).
-     * Populates this.regions.
+     * Queries Overpass for admin_level=8 boundaries within radiusMeters of (lat,lng),
+     * in concurrently fetched tiles (see OverpassFetcher). Populates this.regions.
      */
-    private void fetchBoundaries(double lat, double lng, int radiusMeters) throws Exception {
-    String query = "[out:json];"
-            + "(relation[\"boundary\"=\"administrative\"][\"admin_level\"=\"8\"]"
-            + "(around:" + radiusMeters + "," + lat + "," + lng + "););"
-            + "out geom;";
-
-    String encoded = "data=" + URLEncoder.encode(query, StandardCharsets.UTF_8);
-
-    HttpRequest request = HttpRequest.newBuilder()
-        .uri(URI.create("https://overpass-api.de/api/interpreter"))
-        .header("Content-Type", "application/x-www-form-urlencoded")
-        .POST(HttpRequest.BodyPublishers.ofString("data=" + URLEncoder.encode(query, StandardCharsets.UTF_8)))
-        .build();
-
-    System.out.println("Overpass query: " + query);
-    System.out.println("URL: https://overpass-api.de/api/interpreter");
-    String body = HttpClient.newHttpClient()
-            .send(request, HttpResponse.BodyHandlers.ofString()).body();
-    System.out.println("Response: " + body);
-    JsonNode elements = new ObjectMapper().readTree(body).path("elements");
-
-    for (JsonNode el : elements) {
-        TownRegion region = new TownRegion();
-        region.name = el.path("tags").path("name").asText("Unknown");
-        region.population = el.path("tags").path("population").asInt(0);
-        region.area = el.path("tags").path("area").asDouble(0.0);
-
-        // Collect ALL outer way segments (not just the first one)
-        for (JsonNode member : el.path("members")) {
-            if (!"outer".equals(member.path("role").asText())) continue;
-            List<GeoPosition> ring = new ArrayList<>();
-            //JsonNode geometry = member.path("geometry");
-            for (JsonNode pt : member.path("geometry")) {
-                ring.add(new GeoPosition(pt.get("lat").asDouble(), pt.get("lon").asDouble()));
-        }
-        if (ring.size() > 1) region.rings.add(ring);
-            // NO break — keep looping through all outer members
+    private void fetchBoundaries(double lat, double lng, int radiusMeters) {
+        try {
+            regions.addAll(OverpassFetcher.fromSystemProperties().fetchTowns(lat, lng, radiusMeters));
+        } catch (Exception e) {
+            throw new CompletionException(e);
         }
+    }
 
-        if (!region.rings.isEmpty()) {
-            region.rings = stitchRings(region.rings);
-            regions.add(region);
+    // ── Tile prefetch ────────────────────────────────────────────────────────
+
+    /**
+     * Queues the tiles of the first screen around center on the tile factory, so
+     * they download while Overpass is still being queried. Runs on the EDT, which
+     * is where the tile factory is used from when the map paints.
+     */
+    private void prefetchTiles(GeoPosition center) {
+        int size = tileFactory.getTileSize(INITIAL_ZOOM);
+        Dimension mapTiles = tileFactory.getMapSize(INITIAL_ZOOM);
+        Point2D px = tileFactory.geoToPixel(center, INITIAL_ZOOM);
+        int x0 = (int) Math.floor((px.getX() - MAP_WIDTH / 2.0) / size);
+        int x1 = (int) Math.floor((px.getX() + MAP_WIDTH / 2.0) / size);
+        int y0 = (int) Math.floor((px.getY() - MAP_HEIGHT / 2.0) / size);
+        int y1 = (int) Math.floor((px.getY() + MAP_HEIGHT / 2.0) / size);
+        for (int y = Math.max(0, y0); y <= Math.min(mapTiles.height - 1, y1); y++) {
+            for (int x = Math.max(0, x0); x <= Math.min(mapTiles.width - 1, x1); x++) {
+                tileFactory.getTile(x, y, INITIAL_ZOOM);
+            }
         }
     }
-}
 
     // ── GUI builder ──────────────────────────────────────────────────────────
 
-    private void buildUI(double centerLat, double centerLng,
-                         String townName, String stateCode) {
+    private void buildUI(GeoPosition center, String townName, String stateCode) {
 
         // Set up JXMapViewer
         mapViewer = new JXMapViewer();
-        mapViewer.setPreferredSize(new Dimension(900, 650));
+        mapViewer.setPreferredSize(new Dimension(MAP_WIDTH, MAP_HEIGHT));
         mapViewer.setBorder(BorderFactory.createLineBorder(Color.RED, 3));
-        TileFactoryInfo info = new OSMTileFactoryInfo(
-        "OpenStreetMap", 
-        "https://tile.openstreetmap.org"
-        );
-        DefaultTileFactory tileFactory = new DefaultTileFactory(info);
-        tileFactory.setThreadPoolSize(4);
+        tileFactory.watch(mapViewer);
         mapViewer.setTileFactory(tileFactory);
-        mapViewer.setAddressLocation(new GeoPosition(centerLat, centerLng));
-        mapViewer.setZoom(7); // adjust: lower = more zoomed in
+        mapViewer.setAddressLocation(center);
+        mapViewer.setZoom(INITIAL_ZOOM); // adjust: lower = more zoomed in
 
         // Paint town polygons on top of the map
-        mapViewer.setOverlayPainter(new CompoundPainter<>(buildPainters()));
+        mapViewer.setOverlayPainter(buildPainter());
 
         // Click detection: find which region was clicked
         mapViewer.addMouseListener(new MouseAdapter() {
@@ -207,131 +184,98 @@ public class SuburbanScrambleMAP extends JFrame {
         setSize(900, 700);
         setLocationRelativeTo(null);
         setVisible(true);
-        mapViewer.setZoom(7);
-        mapViewer.setAddressLocation(new GeoPosition(centerLat, centerLng));
+        mapViewer.setZoom(INITIAL_ZOOM);
+        mapViewer.setAddressLocation(center);
+
+        // Warm the tile cache for the whole game area at this zoom and the ones either side;
+        // TileStore skips this on the OSM servers unless -Dtiles.prefetchOsm=true
+        if (!regions.isEmpty()) {
+            double minLat = Double.MAX_VALUE, minLng = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE, maxLng = -Double.MAX_VALUE;
+            for (TownRegion r : regions) {
+                minLat = Math.min(minLat, r.rings.minLat);
+                minLng = Math.min(minLng, r.rings.minLng);
+                maxLat = Math.max(maxLat, r.rings.maxLat);
+                maxLng = Math.max(maxLng, r.rings.maxLng);
+            }
+            TileStore.shared().prefetch(tileFactory.getInfo(), minLat, minLng, maxLat, maxLng, INITIAL_ZOOM);
+        }
     }
 
-    // ── Painters (draw polygons) ─────────────────────────────────────────────
-
-    private List<Painter<JXMapViewer>> buildPainters() {
-        List<Painter<JXMapViewer>> painters = new ArrayList<>();
-
-        for (TownRegion region : regions) {
-            painters.add((g2, map, w, h) -> {
-                // Convert geo polygon to screen polygon
-                Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
-                for (List<GeoPosition> ring : region.rings) {
-                    boolean first = true;
-                    for (GeoPosition gp : ring) {
-                        Point2D pt = map.convertGeoPositionToPoint(gp);
-                        if (first) { path.moveTo(pt.getX(), pt.getY()); first = false; }
-                        else path.lineTo(pt.getX(), pt.getY());
-                    }
-                path.closePath(); // close each ring individually
-                }
-
-                // Fill color based on claim state
-                Color fill = switch (region.claimState) {
-                    case 1  -> new Color(0, 255, 0, 80);   // team 1 green
-                    case 2  -> new Color(255, 0, 0, 80);   // team 2 red
-                    default -> new Color(200, 200, 255, 60); // unclaimed light blue
-                };
-
-                g2.setColor(fill);
-                g2.fill(path);
-                g2.setColor(Color.DARK_GRAY);
-                g2.setStroke(new BasicStroke(1.5f));
-                g2.draw(path);
-
-                // Draw town name at centroid
-                double avLats = 0;
-                double avLons = 0;
-                int ringCount = 0;
-                for(List<GeoPosition> ring: region.rings){
-                    avLats += ring.stream().mapToDouble(p -> p.getLatitude()).average().orElse(0);
-                    avLons += ring.stream().mapToDouble(p -> p.getLongitude()).average().orElse(0);
-                    ringCount++;
-                }
-                double avLat = avLats/ringCount;
-                double avLon = avLons/ringCount;
+    // ── Painter (draw polygons) ──────────────────────────────────────────────
+
+    private static final Color[] CLAIM_FILLS = {  // by claimState
+            new Color(200, 200, 255, 60),  // unclaimed light blue
+            new Color(0, 255, 0, 80),      // team 1 green
+            new Color(255, 0, 0, 80)};     // team 2 red
+    private static final BasicStroke OUTLINE_STROKE = new BasicStroke(1.5f);
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.BOLD, 11);
+
+    // Town fills merged per claim state and every outline merged into one path
+    private final RegionBatch batch = new RegionBatch(CLAIM_FILLS.length,
+            i -> regions.get(i).rings, i -> regions.get(i).claimState, true);
+
+    /** All towns in one painter: a fill per claim state, one stroke for the outlines, then the names. */
+    private Painter<JXMapViewer> buildPainter() {
+        return (g2, map, w, h) -> {
+            batch.update(map.getTileFactory().getInfo(), map.getZoom(), regions.size());
+
+            // Cached world-pixel paths, shifted into screen space by the viewport origin
+            Rectangle viewport = map.getViewportBounds();
+            g2.translate(-viewport.x, -viewport.y);
+            for (int state = 0; state < batch.groups(); state++) {
+                g2.setColor(CLAIM_FILLS[state]);
+                for (int chunk = 0; chunk < batch.chunks(); chunk++) g2.fill(batch.fill(state, chunk));
+            }
+            g2.setColor(Color.DARK_GRAY);
+            g2.setStroke(OUTLINE_STROKE);
+            g2.draw(batch.outlines());
+            g2.translate(viewport.x, viewport.y);
+
+            // Town names centred on their label points, inside the town even when it is concave
+            g2.setColor(Color.BLACK);
+            g2.setFont(LABEL_FONT);
+            FontMetrics fm = g2.getFontMetrics();
+            for (TownRegion region : regions) {
                 Point2D center = map.convertGeoPositionToPoint(
-                new GeoPosition(avLat, avLon));
-                g2.setColor(Color.BLACK);
-                g2.setFont(new Font("SansSerif", Font.BOLD, 11));
-                g2.drawString(region.name, (float) center.getX() - 20, (float) center.getY());
-            });
-        }
-        return painters;
+                        new GeoPosition(region.metrics.labelLat, region.metrics.labelLng));
+                float half = fm.stringWidth(region.name) / 2f;
+                g2.drawString(region.name, (float) center.getX() - half, (float) center.getY());
+            }
+        };
     }
 
     // ── Hit testing ──────────────────────────────────────────────────────────
 
     /**
      * Checks if a clicked GeoPosition falls inside any region's polygon.
-     * Uses a simple ray-casting algorithm on screen coordinates.
+     * The R-tree narrows it to regions whose bounding box holds the point; those
+     * get a point-in-polygon test on geo coordinates.
      */
     private TownRegion findRegionAt(GeoPosition clicked) {
-        Point2D clickPt = mapViewer.convertGeoPositionToPoint(clicked);
-
-        for (TownRegion region : regions) {
-            Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
-            for (List<GeoPosition> lgp : region.rings){
-                boolean first = true;
-                for(GeoPosition gp : lgp){
-                Point2D pt = mapViewer.convertGeoPositionToPoint(gp);
-                if (first) { path.moveTo(pt.getX(), pt.getY()); first = false; }
-                else         path.lineTo(pt.getX(), pt.getY());
-                }
-                path.closePath();
-            }
-            if (path.contains(clickPt)) return region;
-        }
-        return null;
+        double lat = clicked.getLatitude(), lng = clicked.getLongitude();
+        int[] best = {Integer.MAX_VALUE};
+        regionIndex.search(lat, lng, i -> {
+            if (i < best[0] && regions.get(i).rings.contains(lat, lng)) best[0] = i;
+        });
+        return best[0] == Integer.MAX_VALUE ? null : regions.get(best[0]);
     }
 
-    private List<List<GeoPosition>> stitchRings(List<List<GeoPosition>> segments) {
-    List<List<GeoPosition>> remaining = new ArrayList<>(segments);
-    List<List<GeoPosition>> result = new ArrayList<>();
-
-    while (!remaining.isEmpty()) {
-        List<GeoPosition> chain = new ArrayList<>(remaining.remove(0));
-        boolean progress = true;
-        while (progress) {
-            progress = false;
-            for (int i = 0; i < remaining.size(); i++) {
-                List<GeoPosition> seg = remaining.get(i);
-                GeoPosition chainEnd = chain.get(chain.size() - 1);
-                GeoPosition segStart = seg.get(0);
-                GeoPosition segEnd = seg.get(seg.size() - 1);
-
-                if (close(chainEnd, segStart)) {
-                    chain.addAll(seg);
-                    remaining.remove(i);
-                    progress = true;
-                    break;
-                } else if (close(chainEnd, segEnd)) {
-                    List<GeoPosition> rev = new ArrayList<>(seg);
-                    Collections.reverse(rev);
-                    chain.addAll(rev);
-                    remaining.remove(i);
-                    progress = true;
-                    break;
-                }
-            }
-        }
-        result.add(chain);
+    /**
+     * Joins way segments (interleaved lat,lng) end to end into closed rings.
+     * Outer rings come first; holes follow as extra parts, which the painter and
+     * PackedGeometry.contains treat even-odd.
+     */
+    static List<double[]> stitchRings(List<double[]> outer, List<double[]> inner) {
+        List<double[]> rings = RingStitcher.stitch(outer);
+        rings.addAll(RingStitcher.stitch(inner));
+        return rings;
     }
-    return result;
-}
 
-private boolean close(GeoPosition a, GeoPosition b) {
-    return Math.abs(a.getLatitude()  - b.getLatitude())  < 0.0001 &&
-           Math.abs(a.getLongitude() - b.getLongitude()) < 0.0001;
-}
     // ── Claim logic ──────────────────────────────────────────────────────────
 
     private void cycleClaim(TownRegion region) {
         region.claimState = (region.claimState + 1) % 3;
+        batch.moved(regions.indexOf(region));
 
         switch (region.claimState) {
             case 1 -> { t2_towns.remove(region.name); t1_towns.put(region.name, region); }
@@ -339,7 +283,16 @@ private boolean close(GeoPosition a, GeoPosition b) {
             case 0 -> { t1_towns.remove(region.name); t2_towns.remove(region.name); }
         }
 
-        mapViewer.repaint(); // redraw polygons with new color
+        mapViewer.repaint(screenBounds(region)); // redraw just this town with its new color
+    }
+
+    /** Screen rectangle covered by a region at the current zoom, padded for its outline. */
+    private Rectangle screenBounds(TownRegion region) {
+        Rectangle bounds = region.rings.worldPath(mapViewer.getTileFactory().getInfo(), mapViewer.getZoom(), true).getBounds();
+        Rectangle viewport = mapViewer.getViewportBounds();
+        bounds.translate(-viewport.x, -viewport.y);
+        bounds.grow(2, 2);
+        return bounds;
     }
 
     private int getPop(Map<String, TownRegion> towns) {
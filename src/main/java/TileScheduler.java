@@ -0,0 +1,192 @@
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.viewer.DefaultTileFactory;
+import org.jxmapviewer.viewer.Tile;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+
+import javax.swing.SwingUtilities;
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tile factory that decides which tile loads next instead of JXMapViewer's FIFO
+ * pool.
+ *
+ * Tiles asked for wait in a pending set. Whenever a loader is free, the pending
+ * tile nearest the viewport center at the current zoom goes next. Tiles of
+ * another zoom level are dropped (they are queued again if a later paint asks
+ * for them), and tiles that scrolled out of view are kept but wait behind every
+ * visible one. So after a fast zoom or pan the loaders work on what is on
+ * screen now, not on what was on screen when the requests were made.
+ *
+ * Loads run on virtual threads, as many at once as the current limit allows.
+ * The limit grows while tiles keep arriving about as fast as the quickest ones
+ * have, and shrinks when latency climbs or loads fail, between MIN_LOADERS and
+ * -Dtiles.maxLoaders (16).
+ *
+ * JXMapViewer's runners load whichever tile is at the head of its own queue, not
+ * the one they were created for, so outcomes are kept per tile: each dispatched
+ * tile remembers when it was handed over, and whenever a runner returns, every
+ * dispatched tile that is no longer loading is settled with its own latency and
+ * result.
+ */
+final class TileScheduler extends DefaultTileFactory {
+
+    private static final int MIN_LOADERS = 2;
+    private static final int DEFAULT_MAX_LOADERS = Integer.getInteger("tiles.maxLoaders", 16);
+
+    private final LinkedHashSet<Tile> pending = new LinkedHashSet<>();
+    private JXMapViewer map;
+
+    // Viewport in world pixels and zoom, as of the last paint on the EDT
+    private Rectangle viewport;
+    private int viewZoom = -1;
+
+    // Adaptive concurrency
+    private double limit = 4;
+    private int maxLoaders = DEFAULT_MAX_LOADERS;
+    private final HashMap<Tile, Long> inFlight = new HashMap<>(); // dispatched tile -> System.nanoTime() at dispatch
+    private double fastestMillis = Double.MAX_VALUE;
+
+    int loaded, failed, cancelled;
+
+    TileScheduler(TileFactoryInfo info) {
+        super(info);
+    }
+
+    /** Caps concurrent loads at max instead of -Dtiles.maxLoaders, e.g. to compare against a fixed-size pool. */
+    synchronized void setMaxLoaders(int max) {
+        maxLoaders = Math.max(MIN_LOADERS, max);
+        limit = Math.min(limit, maxLoaders);
+    }
+
+    /** Orders loading by distance from this map's viewport center. */
+    void watch(JXMapViewer map) {
+        this.map = map;
+    }
+
+    @Override
+    protected ExecutorService getService() {
+        return Net.BACKGROUND;
+    }
+
+    @Override
+    public Tile getTile(int x, int y, int zoom) {
+        if (map != null && SwingUtilities.isEventDispatchThread()) snapshotViewport();
+        Tile tile = super.getTile(x, y, zoom);
+        // A tile dropped while it was off screen is queued again once a paint wants it
+        if (tile.getURL() != null && !tile.isLoaded() && !tile.isLoading() && !tile.loadingFailed()) {
+            startLoading(tile);
+        }
+        return tile;
+    }
+
+    private synchronized void snapshotViewport() {
+        viewport = map.getViewportBounds();
+        viewZoom = map.getZoom();
+    }
+
+    @Override
+    protected synchronized void startLoading(Tile tile) {
+        if (tile.isLoading()) return;
+        pending.add(tile);
+        dispatch();
+    }
+
+    @Override
+    protected Runnable createTileRunner(Tile tile) {
+        Runnable runner = super.createTileRunner(tile);
+        return () -> {
+            try {
+                runner.run();
+            } finally {
+                settle();
+            }
+        };
+    }
+
+    /** Hands the best pending tiles to loaders while the limit allows. */
+    private void dispatch() {
+        while (inFlight.size() < (int) limit && !pending.isEmpty()) {
+            Tile next = takeBest();
+            if (next == null) return;
+            inFlight.put(next, System.nanoTime());
+            super.startLoading(next);
+        }
+    }
+
+    /** The pending tile nearest the viewport center, visible ones first; drops tiles of other zoom levels. */
+    private Tile takeBest() {
+        Tile best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (Iterator<Tile> it = pending.iterator(); it.hasNext(); ) {
+            Tile t = it.next();
+            if (t.isLoaded() || t.isLoading()) {
+                it.remove();
+                continue;
+            }
+            if (viewport == null) return remove(t); // no map yet: first come, first served
+            if (t.getZoom() != viewZoom) {
+                it.remove();
+                cancelled++;
+                continue;
+            }
+            int size = getTileSize(viewZoom);
+            double dx = (t.getX() + 0.5) * size - viewport.getCenterX();
+            double dy = (t.getY() + 0.5) * size - viewport.getCenterY();
+            double score = dx * dx + dy * dy;
+            Rectangle bounds = new Rectangle(t.getX() * size, t.getY() * size, size, size);
+            if (!bounds.intersects(viewport)) score += 1e18; // off screen: after every visible tile
+            if (score < bestScore) {
+                bestScore = score;
+                best = t;
+            }
+        }
+        return best == null ? null : remove(best);
+    }
+
+    private Tile remove(Tile t) {
+        pending.remove(t);
+        return t;
+    }
+
+    /** Settles every dispatched tile whose load has ended, then refills the loaders. */
+    private synchronized void settle() {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Tile, Long>> it = inFlight.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Tile, Long> e = it.next();
+            Tile t = e.getKey();
+            if (t.isLoading()) continue;
+            it.remove();
+            finished(t.isLoaded(), (now - e.getValue()) / 1e6);
+        }
+        dispatch();
+    }
+
+    /** Additive increase while loads stay near the fastest seen, multiplicative decrease otherwise. */
+    private void finished(boolean ok, double millis) {
+        if (ok) {
+            loaded++;
+            fastestMillis = Math.min(fastestMillis, millis);
+            if (millis < 2 * fastestMillis + 20) limit = Math.min(maxLoaders, limit + 1 / limit);
+            else if (millis > 4 * fastestMillis + 50) limit = Math.max(MIN_LOADERS, limit * 0.75);
+        } else {
+            failed++;
+            limit = Math.max(MIN_LOADERS, limit / 2);
+        }
+    }
+
+    /** Loads allowed at once right now. */
+    synchronized double limit() {
+        return limit;
+    }
+
+    synchronized String stats() {
+        return String.format(Locale.ROOT, "loaders %d of %.1f, %d pending, %d loaded, %d failed, %d cancelled",
+                inFlight.size(), limit, pending.size(), loaded, failed, cancelled);
+    }
+}
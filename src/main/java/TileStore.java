@@ -0,0 +1,355 @@
+import org.jxmapviewer.cache.LocalCache;
+import org.jxmapviewer.viewer.GeoPosition;
+import org.jxmapviewer.viewer.TileCache;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+import org.jxmapviewer.viewer.util.GeoUtil;
+
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache for basemap tiles, plugged into JXMapViewer's tile factory.
+ *
+ * The factory's loader asks its TileCache first (here Memory: an LRU of decoded
+ * images bounded by their pixel bytes), then its LocalCache (here Disk: one
+ * file per tile URL, evicted least recently used once the directory exceeds its
+ * size budget), and only then the network. A tile seen in an earlier session
+ * therefore loads from disk, and one seen earlier in this session from memory.
+ *
+ * prefetch() warms the disk tier for a game area at the current and adjacent
+ * zoom levels in the background, a few requests at a time, so the loader's own
+ * queue stays free for the tiles actually on screen. The OpenStreetMap tile
+ * servers' usage policy forbids bulk downloading, so areas on those are only
+ * prefetched with -Dtiles.prefetchOsm=true.
+ *
+ * Settings: -Dtiles.dir (default ~/.suburbanscramble/tiles), -Dtiles.maxMB (512),
+ * -Dtiles.ttlDays (30), -Dtiles.memoryMB (96), -Dtiles.prefetch (true),
+ * -Dtiles.prefetchOsm (false), -Dtiles.userAgent.
+ */
+final class TileStore {
+
+    // Tile servers (OSM's among them) ask for an agent that identifies the app and a contact
+    private static final String USER_AGENT = System.getProperty("tiles.userAgent",
+            "SuburbanScramble/1.0 (+https://github.com/Ben6246/SuburbanScramble)");
+    private static final Set<String> NO_BULK_HOSTS = Set.of("tile.openstreetmap.org");
+    private static final int PREFETCH_CONCURRENCY = 2;
+    private static final int PREFETCH_MAX_TILES = 1500;
+    // Misses the disk tier tracks before it forgets those whose download has had a minute
+    private static final int MAX_TRACKED_MISSES = 256;
+    private static final long MISS_TIMEOUT_NANOS = 60_000_000_000L;
+
+    private static TileStore shared;
+
+    final Memory memory;
+    final Disk disk;
+
+    final AtomicInteger memoryHits = new AtomicInteger();
+    final AtomicInteger diskHits = new AtomicInteger();
+    final AtomicInteger downloads = new AtomicInteger();
+    final AtomicInteger prefetched = new AtomicInteger();
+    private final AtomicLong diskNanos = new AtomicLong();
+    private final AtomicLong downloadNanos = new AtomicLong();
+
+    TileStore(Path dir, long maxDiskBytes, long ttlMillis, long maxMemoryBytes) {
+        this.memory = new Memory(maxMemoryBytes);
+        this.disk = new Disk(dir, maxDiskBytes, ttlMillis);
+    }
+
+    static synchronized TileStore shared() {
+        if (shared == null) {
+            Path dir = Paths.get(System.getProperty("tiles.dir",
+                    Paths.get(System.getProperty("user.home"), ".suburbanscramble", "tiles").toString()));
+            shared = new TileStore(dir,
+                    Long.getLong("tiles.maxMB", 512) << 20,
+                    Long.getLong("tiles.ttlDays", 30) * 86_400_000,
+                    Long.getLong("tiles.memoryMB", 96) << 20);
+        }
+        return shared;
+    }
+
+    /** A tile factory for info that loads through this store, scheduled by TileScheduler. */
+    TileScheduler factory(TileFactoryInfo info) {
+        TileScheduler factory = new TileScheduler(info);
+        factory.setUserAgent(USER_AGENT);
+        factory.setTileCache(memory);
+        factory.setLocalCache(disk);
+        return factory;
+    }
+
+    /** Hit ratio and mean load time per tier, for logs and the stats overlay. */
+    String stats() {
+        int mem = memoryHits.get(), dsk = diskHits.get(), net = downloads.get();
+        int total = mem + dsk + net;
+        return String.format(Locale.ROOT,
+                "tiles: %d memory, %d disk (%.1f ms), %d network (%.0f ms), hit ratio %.0f%%, %d prefetched",
+                mem, dsk, dsk == 0 ? 0 : diskNanos.get() / 1e6 / dsk,
+                net, net == 0 ? 0 : downloadNanos.get() / 1e6 / net,
+                total == 0 ? 0 : 100.0 * (mem + dsk) / total, prefetched.get());
+    }
+
+    // ── Memory tier ──────────────────────────────────────────────────────────
+
+    /** Decoded tiles by URI, least recently used dropped first. Replaces the factory's unsynchronized default. */
+    final class Memory extends TileCache {
+        private final long maxBytes;
+        private final LinkedHashMap<URI, BufferedImage> images = new LinkedHashMap<>(256, 0.75f, true);
+        // The loader reads a tile back right after putting it; that read isn't a hit
+        private final Set<URI> justPut = new HashSet<>();
+        private long bytes;
+
+        private Memory(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public synchronized void put(URI uri, byte[] encoded, BufferedImage image) {
+            if (image == null) return;
+            BufferedImage old = images.put(uri, image);
+            bytes += sizeOf(image) - (old == null ? 0 : sizeOf(old));
+            justPut.add(uri);
+            Iterator<BufferedImage> eldest = images.values().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= sizeOf(eldest.next());
+                eldest.remove();
+            }
+        }
+
+        @Override
+        public synchronized BufferedImage get(URI uri) {
+            BufferedImage image = images.get(uri);
+            if (image != null && !justPut.remove(uri)) memoryHits.incrementAndGet();
+            return image;
+        }
+
+        @Override
+        public synchronized void needMoreMemory() {
+            images.clear();
+            justPut.clear();
+            bytes = 0;
+        }
+
+        private static long sizeOf(BufferedImage image) {
+            return 4L * image.getWidth() * image.getHeight();
+        }
+    }
+
+    // ── Disk tier ────────────────────────────────────────────────────────────
+
+    /** Encoded tiles under dir/host/path, as the tile server names them. */
+    final class Disk implements LocalCache {
+        private final Path dir;
+        private final long maxBytes;
+        private final long ttlMillis;
+        // Size of the directory, counted on first write; eviction brings it back under maxBytes
+        private long totalBytes = -1;
+        // When each tile missed, to time its download until the loader puts it. Failed or
+        // abandoned downloads are never put, so their entries are dropped once they are stale.
+        private final Map<String, Long> missedAt = new ConcurrentHashMap<>();
+
+        private Disk(Path dir, long maxBytes, long ttlMillis) {
+            this.dir = dir;
+            this.maxBytes = maxBytes;
+            this.ttlMillis = ttlMillis;
+        }
+
+        @Override
+        public InputStream get(URL url) throws IOException {
+            long start = System.nanoTime();
+            Path file = fileFor(url);
+            if (!isFresh(file)) {
+                missed(url, start);
+                return null;
+            }
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(file);
+            } catch (NoSuchFileException e) { // evicted meanwhile
+                missed(url, start);
+                return null;
+            }
+            Files.setAttribute(file, "lastAccessTime", FileTime.fromMillis(System.currentTimeMillis()));
+            diskHits.incrementAndGet();
+            diskNanos.addAndGet(System.nanoTime() - start);
+            return new ByteArrayInputStream(bytes);
+        }
+
+        private void missed(URL url, long start) {
+            if (missedAt.size() >= MAX_TRACKED_MISSES) {
+                missedAt.values().removeIf(at -> start - at > MISS_TIMEOUT_NANOS);
+            }
+            missedAt.put(url.toString(), start);
+        }
+
+        @Override
+        public void put(URL url, InputStream data) throws IOException {
+            // The loader also puts back what get() just returned from disk
+            Long missed = missedAt.remove(url.toString());
+            if (missed == null) return;
+            downloads.incrementAndGet();
+            downloadNanos.addAndGet(System.nanoTime() - missed);
+            store(url, data.readAllBytes());
+        }
+
+        boolean contains(URL url) throws IOException {
+            return isFresh(fileFor(url));
+        }
+
+        void store(URL url, byte[] bytes) throws IOException {
+            Path file = fileFor(url);
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".part");
+            try {
+                Files.write(temp, bytes);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            grow(bytes.length);
+        }
+
+        private boolean isFresh(Path file) throws IOException {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+            return System.currentTimeMillis() - attrs.lastModifiedTime().toMillis() <= ttlMillis;
+        }
+
+        /** dir/host/path, with the query (if any) folded into the file name. */
+        private Path fileFor(URL url) {
+            String path = url.getPath().replace("..", "_");
+            if (url.getQuery() != null) path += "_" + Integer.toHexString(url.getQuery().hashCode());
+            return dir.resolve(url.getHost().toLowerCase(Locale.ROOT)).resolve(path.replaceFirst("^/+", ""));
+        }
+
+        private synchronized void grow(long added) throws IOException {
+            if (totalBytes < 0) {
+                totalBytes = 0;
+                for (Path f : files()) totalBytes += Files.size(f);
+            } else {
+                totalBytes += added;
+            }
+            if (totalBytes > maxBytes) evict();
+        }
+
+        /** Drops least recently used tiles until the directory is back under 90% of maxBytes. */
+        private void evict() throws IOException {
+            List<Path> files = files();
+            files.sort(Comparator.comparing(f -> {
+                try { return Files.readAttributes(f, BasicFileAttributes.class).lastAccessTime(); }
+                catch (IOException e) { return FileTime.fromMillis(0); }
+            }));
+            for (Path f : files) {
+                if (totalBytes <= maxBytes * 9 / 10) break;
+                totalBytes -= Files.size(f);
+                Files.deleteIfExists(f);
+            }
+        }
+
+        private List<Path> files() throws IOException {
+            if (!Files.isDirectory(dir)) return new ArrayList<>();
+            try (Stream<Path> walk = Files.walk(dir)) {
+                return new ArrayList<>(walk.filter(Files::isRegularFile)
+                        .filter(f -> !f.getFileName().toString().endsWith(".part")).toList());
+            }
+        }
+    }
+
+    // ── Prefetch ─────────────────────────────────────────────────────────────
+
+    /**
+     * Downloads to disk every tile covering the box at zoom and the zoom levels
+     * either side of it (current level first, then out, then in), skipping tiles
+     * already cached. Runs in the background; the future completes with the
+     * number of tiles downloaded once all have been tried.
+     */
+    CompletableFuture<Integer> prefetch(TileFactoryInfo info, double minLat, double minLng,
+                                        double maxLat, double maxLng, int zoom) {
+        if (!Boolean.parseBoolean(System.getProperty("tiles.prefetch", "true"))) {
+            return CompletableFuture.completedFuture(0);
+        }
+        if (!allowsPrefetch(info)) {
+            System.out.println("Tile prefetch: skipped, " + info.getName()
+                    + " does not allow bulk downloads (-Dtiles.prefetchOsm=true to override)");
+            return CompletableFuture.completedFuture(0);
+        }
+        List<URL> urls = new ArrayList<>();
+        for (int z : new int[] {zoom, zoom + 1, zoom - 1}) {
+            if (z < info.getMinimumZoomLevel() || z > info.getMaximumZoomLevel()) continue;
+            Point2D nw = GeoUtil.getBitmapCoordinate(new GeoPosition(maxLat, minLng), z, info);
+            Point2D se = GeoUtil.getBitmapCoordinate(new GeoPosition(minLat, maxLng), z, info);
+            int size = info.getTileSize(z);
+            int maxTile = info.getMapWidthInTilesAtZoom(z) - 1;
+            for (int y = Math.max(0, (int) (nw.getY() / size)); y <= Math.min(maxTile, (int) (se.getY() / size)); y++) {
+                for (int x = Math.max(0, (int) (nw.getX() / size)); x <= Math.min(maxTile, (int) (se.getX() / size)); x++) {
+                    if (urls.size() >= PREFETCH_MAX_TILES) break;
+                    try {
+                        urls.add(URI.create(info.getTileUrl(x, y, z)).toURL());
+                    } catch (IOException | IllegalArgumentException e) {
+                        // the info doesn't produce URLs (e.g. a local file tile set)
+                        return CompletableFuture.completedFuture(0);
+                    }
+                }
+            }
+        }
+
+        Semaphore slots = new Semaphore(PREFETCH_CONCURRENCY);
+        AtomicInteger fetched = new AtomicInteger();
+        CompletableFuture<?>[] tiles = new CompletableFuture<?>[urls.size()];
+        for (int i = 0; i < tiles.length; i++) {
+            URL url = urls.get(i);
+            tiles[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    if (disk.contains(url)) return;
+                    slots.acquire();
+                    try {
+                        if (download(url)) fetched.incrementAndGet();
+                    } finally {
+                        slots.release();
+                    }
+                } catch (Exception e) {
+                    // A tile that fails here is simply loaded on demand later
+                }
+            }, Net.BACKGROUND);
+        }
+        return CompletableFuture.allOf(tiles).thenApply(done -> {
+            System.out.printf("Tile prefetch: %d of %d tiles downloaded, %s%n", fetched.get(), urls.size(), stats());
+            return fetched.get();
+        });
+    }
+
+    /** False for providers whose usage policy forbids bulk downloads, unless opted in. */
+    private static boolean allowsPrefetch(TileFactoryInfo info) {
+        if (Boolean.getBoolean("tiles.prefetchOsm")) return true;
+        String host = URI.create(info.getBaseURL()).getHost();
+        return host == null || !NO_BULK_HOSTS.contains(host);
+    }
+
+    private boolean download(URL url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(url.toURI()).header("User-Agent", USER_AGENT).GET().build();
+        HttpResponse<byte[]> response = Net.CLIENT.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) return false;
+        disk.store(url, response.body());
+        prefetched.incrementAndGet();
+        return true;
+    }
+}
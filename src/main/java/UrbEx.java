@@ -1,23 +1,22 @@
 import org.jxmapviewer.JXMapViewer;
 import org.jxmapviewer.OSMTileFactoryInfo;
-import org.jxmapviewer.viewer.DefaultTileFactory;
 import org.jxmapviewer.viewer.GeoPosition;
 import org.jxmapviewer.viewer.TileFactoryInfo;
 import org.jxmapviewer.input.PanMouseInputListener;
-import org.jxmapviewer.painter.CompoundPainter;
-import org.jxmapviewer.painter.Painter;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.geom.Path2D;
-import java.awt.geom.Point2D;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
-
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class UrbEx extends JFrame {
 
@@ -25,33 +24,42 @@ public class UrbEx extends JFrame {
 
     static class TownRegion {
         String name;
-        List<List<GeoPosition>> rings = new ArrayList<>();
+        PackedGeometry rings = PackedGeometry.EMPTY;
         int claimState = 0; // 0 = unclaimed, 1 = team1, 2 = team2
         int population;
+        RegionMetrics metrics; // set by CityOverlay.prepare()
     }
 
     static class TransitLine {
         Color color;
-        List<List<GeoPosition>> segments = new ArrayList<>();
+        Color paintColor; // color as drawn, set by CityOverlay when the line is added
+        PackedGeometry segments = PackedGeometry.EMPTY;
     }
 
     private double zoomAccumulator = 0;
+    private static final int REFINE_DELAY_MS = 150;
+    private javax.swing.Timer refineTimer;
     private final Map<String, TownRegion> t1_towns = new HashMap<>();
     private final Map<String, TownRegion> t2_towns = new HashMap<>();
-    private final List<TownRegion> regions = new ArrayList<>();
-    private final List<TransitLine> transitLines = new ArrayList<>();
-    private final List<TransitLine> busLines = new ArrayList<>();
-    private final List<GeoPosition> trainStations = new ArrayList<>();
-    private final List<GeoPosition> busStops = new ArrayList<>();
-    private boolean showBusLines = true;
-    private boolean showTrainStations = true;
-    private boolean showBusStops = true;
+    private final CityOverlay overlay = new CityOverlay();
+    private final List<TownRegion> regions = overlay.regions;
     private JXMapViewer mapViewer;
 
+    // Hover: mouse moves only note the pointer, and one hit test per frame runs on the latest position
+    private static final int HOVER_HIT_TEST_MS = (int) FrameTimes.BUDGET_MS;
+    private static final int HOVER_POPUP_DELAY_MS = 1000;
+    private static final Font POPUP_TITLE_FONT = new Font("SansSerif", Font.BOLD, 12);
+    private static final Font POPUP_TEXT_FONT  = new Font("SansSerif", Font.PLAIN, 11);
     private TownRegion hoveredRegion = null;
-    private javax.swing.Timer hoverTimer = null;
-    private JWindow hoverPopup = null;
-    private Point lastMouseScreenPos;
+    private final Point hoverPoint = new Point();
+    private final Point hoverScreenPos = new Point();
+    private javax.swing.Timer hoverHitTest;
+    private javax.swing.Timer hoverTimer;
+    // Built once; showing the popup only swaps the label text
+    private JWindow hoverPopup;
+    private final JLabel popupName = new JLabel();
+    private final JLabel popupPopulation = new JLabel();
+    private final JLabel popupArea = new JLabel();
 
     // ── Constructor ─────────────────────────────────────────────────────────
 
@@ -68,173 +76,216 @@ public class UrbEx extends JFrame {
 
         String cityName = tfCity.getText().trim().toLowerCase();
 
+        // Boundaries gate the window; the transit layers load alongside and show up when ready
+        String base = "data/" + cityName;
+        Path pack = Paths.get(base + ".pack");
+        CompletableFuture<Void> boundaries;
+        boolean packed;
         try {
-            loadFromGeoJson("data/" + cityName + ".geojson");
+            packed = CityPack.isFresh(pack, "data", cityName);
         } catch (Exception ex) {
-            JOptionPane.showMessageDialog(null, "Failed to load GeoJSON:\n" + ex.getMessage());
-            return;
+            packed = false;
         }
-
-        if (regions.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "No regions found in file.");
-            return;
+        if (packed) {
+            boundaries = load(pack.getFileName().toString(), () -> {
+                PackedGeometry[] points = CityPack.read(pack, regions, overlay.transitLines, overlay.busLines);
+                overlay.trainStations = points[0];
+                overlay.busStops = points[1];
+            });
+        } else {
+            boundaries = load(cityName + ".geojson", () ->
+                    loadFromGeoJson(base + ".geojson", regions, overlay.transitLines));
         }
+        boundaries = boundaries.thenRun(() -> {
+            try {
+                overlay.prepare();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        boundaries.whenComplete((ok, err) -> SwingUtilities.invokeLater(() -> {
+            if (err != null) {
+                JOptionPane.showMessageDialog(null, "Failed to load GeoJSON:\n" + Net.cause(err).getMessage());
+            } else if (regions.isEmpty()) {
+                JOptionPane.showMessageDialog(null, "No regions found in file.");
+            } else {
+                buildUI(overlay.center(), cityName);
+            }
+        }));
+        if (packed) return;
+
+        // A layer that fails to load is left out, as before; the rest of the map still works
+        List<TransitLine> buses = new ArrayList<>();
+        PackedGeometry[] stations = {PackedGeometry.EMPTY}, stops = {PackedGeometry.EMPTY};
+        showWhenReady(boundaries, load("bus lines", () -> {
+            loadBusLines(base + "_buses.geojson", buses);
+            for (TransitLine l : buses) l.segments.buildLevelsOfDetail(true);
+        }), () -> overlay.addBusLines(buses));
+        showWhenReady(boundaries, load("stations", () -> stations[0] = loadPoints(base + "_stations.geojson")),
+                () -> overlay.setTrainStations(stations[0]));
+        showWhenReady(boundaries, load("bus stops", () -> stops[0] = loadPoints(base + "_bus_stops.geojson")),
+                () -> overlay.setBusStops(stops[0]));
+    }
+
+    /** Runs a load step on a background thread, timed. */
+    private static CompletableFuture<Void> load(String label, LoadStep step) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                timed(label, step);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, Net.BACKGROUND);
+    }
 
-        // Compute map center from all loaded regions
-        double centerLat = regions.stream()
-                .flatMap(r -> r.rings.stream())
-                .flatMap(List::stream)
-                .mapToDouble(GeoPosition::getLatitude)
-                .average().orElse(41.8827);
-        double centerLng = regions.stream()
-                .flatMap(r -> r.rings.stream())
-                .flatMap(List::stream)
-                .mapToDouble(GeoPosition::getLongitude)
-                .average().orElse(-87.6233);
-
-        try { loadBusLines("data/" + cityName + "_buses.geojson"); } catch (Exception ignored) {}
-        try { loadStations("data/" + cityName + "_stations.geojson"); } catch (Exception ignored) {}
-        try { loadBusStops("data/" + cityName + "_bus_stops.geojson"); } catch (Exception ignored) {}
-
-        buildUI(centerLat, centerLng, cityName);
+    /** Hands a loaded layer to the overlay on the EDT once the window is up, then repaints. */
+    private void showWhenReady(CompletableFuture<Void> boundaries, CompletableFuture<Void> layer, Runnable publish) {
+        boundaries.thenCombine(layer, (a, b) -> b).whenComplete((ok, err) -> {
+            if (err != null) return;
+            SwingUtilities.invokeLater(() -> {
+                publish.run();
+                if (mapViewer != null) mapViewer.repaint();
+            });
+        });
     }
 
     // ── GeoJSON loader ───────────────────────────────────────────────────────
 
-    private void loadFromGeoJson(String filePath) throws Exception {
-        String content = new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(filePath)));
-        JsonNode root = new ObjectMapper().readTree(content);
+    // Only these properties are materialized; everything else (addr:*, website, …) is skipped
+    private static final Set<String> BOUNDARY_PROPS = Set.of("boundary", "name", "population", "route", "ref", "colour");
+    private static final Set<String> BUS_PROPS      = Set.of("route", "colour");
+    private static final Set<String> POINT_PROPS    = Set.of();
 
+    static void loadFromGeoJson(String filePath, List<TownRegion> regions, List<TransitLine> transitLines) throws Exception {
         Set<String> seenTransitRefs = new HashSet<>();
 
-        for (JsonNode feature : root.path("features")) {
-            JsonNode props = feature.path("properties");
-            JsonNode geometry = feature.path("geometry");
-            String geomType = geometry.path("type").asText();
-
-            if ("administrative".equals(props.path("boundary").asText())) {
+        GeoJsonStream.read(Paths.get(filePath), BOUNDARY_PROPS, (props, geomType, parts) -> {
+            if ("administrative".equals(props.get("boundary"))) {
                 TownRegion region = new TownRegion();
-                region.name = props.path("name").asText("Unknown");
-                region.population = props.path("population").asInt(0);
-
-                if ("Polygon".equals(geomType)) {
-                    for (JsonNode ring : geometry.path("coordinates")) {
-                        List<GeoPosition> positions = new ArrayList<>();
-                        for (JsonNode pt : ring) {
-                            positions.add(new GeoPosition(pt.get(1).asDouble(), pt.get(0).asDouble()));
-                        }
-                        if (!positions.isEmpty()) region.rings.add(positions);
-                    }
-                } else if ("MultiPolygon".equals(geomType)) {
-                    for (JsonNode polygon : geometry.path("coordinates")) {
-                        for (JsonNode ring : polygon) {
-                            List<GeoPosition> positions = new ArrayList<>();
-                            for (JsonNode pt : ring) {
-                                positions.add(new GeoPosition(pt.get(1).asDouble(), pt.get(0).asDouble()));
-                            }
-                            if (!positions.isEmpty()) region.rings.add(positions);
-                        }
-                    }
+                region.name = props.getOrDefault("name", "Unknown");
+                region.population = parseIntOr(props.get("population"), 0);
+
+                if ("Polygon".equals(geomType) || "MultiPolygon".equals(geomType)) {
+                    region.rings = PackedGeometry.of(parts);
                 }
 
                 if (!region.rings.isEmpty()) regions.add(region);
 
-            } else if ("subway".equals(props.path("route").asText())) {
-                String ref = props.path("ref").asText();
-                if (!seenTransitRefs.add(ref)) continue; // deduplicate by line ref
+            } else if ("subway".equals(props.get("route"))) {
+                String ref = props.getOrDefault("ref", "");
+                if (!seenTransitRefs.add(ref)) return; // deduplicate by line ref
 
-                String colourHex = props.path("colour").asText("#888888");
                 TransitLine line = new TransitLine();
-                try { line.color = Color.decode(colourHex); }
-                catch (NumberFormatException e) { line.color = Color.GRAY; }
-
-                if ("MultiLineString".equals(geomType)) {
-                    for (JsonNode segment : geometry.path("coordinates")) {
-                        List<GeoPosition> positions = new ArrayList<>();
-                        for (JsonNode pt : segment) {
-                            positions.add(new GeoPosition(pt.get(1).asDouble(), pt.get(0).asDouble()));
-                        }
-                        if (!positions.isEmpty()) line.segments.add(positions);
-                    }
-                } else if ("LineString".equals(geomType)) {
-                    List<GeoPosition> positions = new ArrayList<>();
-                    for (JsonNode pt : geometry.path("coordinates")) {
-                        positions.add(new GeoPosition(pt.get(1).asDouble(), pt.get(0).asDouble()));
-                    }
-                    if (!positions.isEmpty()) line.segments.add(positions);
+                line.color = decodeColor(props.getOrDefault("colour", "#888888"), Color.GRAY);
+
+                if ("MultiLineString".equals(geomType) || "LineString".equals(geomType)) {
+                    line.segments = PackedGeometry.of(parts);
                 }
 
                 if (!line.segments.isEmpty()) transitLines.add(line);
             }
-        }
+        });
     }
 
-    private void loadBusLines(String filePath) throws Exception {
+    static void loadBusLines(String filePath, List<TransitLine> busLines) throws Exception {
         if (!new java.io.File(filePath).exists()) return;
-        String content = new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(filePath)));
-        JsonNode root = new ObjectMapper().readTree(content);
-        for (JsonNode feature : root.path("features")) {
-            JsonNode props = feature.path("properties");
-            if (!"bus".equals(props.path("route").asText())) continue;
-            JsonNode geometry = feature.path("geometry");
-            String geomType = geometry.path("type").asText();
+        GeoJsonStream.read(Paths.get(filePath), BUS_PROPS, (props, geomType, parts) -> {
+            if (!"bus".equals(props.get("route"))) return;
             TransitLine line = new TransitLine();
-            try { line.color = Color.decode(props.path("colour").asText("#1e90ff")); }
-            catch (NumberFormatException e) { line.color = new Color(30, 144, 255); }
-            if ("MultiLineString".equals(geomType)) {
-                for (JsonNode seg : geometry.path("coordinates")) {
-                    List<GeoPosition> pts = new ArrayList<>();
-                    for (JsonNode pt : seg) pts.add(new GeoPosition(pt.get(1).asDouble(), pt.get(0).asDouble()));
-                    if (!pts.isEmpty()) line.segments.add(pts);
-                }
-            } else if ("LineString".equals(geomType)) {
-                List<GeoPosition> pts = new ArrayList<>();
-                for (JsonNode pt : geometry.path("coordinates")) pts.add(new GeoPosition(pt.get(1).asDouble(), pt.get(0).asDouble()));
-                if (!pts.isEmpty()) line.segments.add(pts);
+            line.color = decodeColor(props.getOrDefault("colour", "#1e90ff"), new Color(30, 144, 255));
+            if ("MultiLineString".equals(geomType) || "LineString".equals(geomType)) {
+                line.segments = PackedGeometry.of(parts);
             }
             if (!line.segments.isEmpty()) busLines.add(line);
-        }
+        });
     }
 
-    private void loadStations(String filePath) throws Exception {
-        if (!new java.io.File(filePath).exists()) return;
-        String content = new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(filePath)));
-        JsonNode root = new ObjectMapper().readTree(content);
-        for (JsonNode feature : root.path("features")) {
-            JsonNode coords = feature.path("geometry").path("coordinates");
-            if (coords.size() >= 2)
-                trainStations.add(new GeoPosition(coords.get(1).asDouble(), coords.get(0).asDouble()));
-        }
+    /** Loads a point layer as a single-part geometry, one vertex per point. */
+    static PackedGeometry loadPoints(String filePath) throws Exception {
+        if (!new java.io.File(filePath).exists()) return PackedGeometry.EMPTY;
+        PackedGeometry.Builder points = new PackedGeometry.Builder();
+        GeoJsonStream.read(Paths.get(filePath), POINT_PROPS, (props, geomType, parts) -> {
+            if ("Point".equals(geomType) && !parts.isEmpty())
+                points.add(parts.get(0)[0], parts.get(0)[1]);
+        });
+        return points.build();
     }
 
-    private void loadBusStops(String filePath) throws Exception {
-        if (!new java.io.File(filePath).exists()) return;
-        String content = new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(filePath)));
-        JsonNode root = new ObjectMapper().readTree(content);
-        for (JsonNode feature : root.path("features")) {
-            JsonNode coords = feature.path("geometry").path("coordinates");
-            if (coords.size() >= 2)
-                busStops.add(new GeoPosition(coords.get(1).asDouble(), coords.get(0).asDouble()));
+    private static Color decodeColor(String hex, Color fallback) {
+        try { return Color.decode(hex); }
+        catch (NumberFormatException e) { return fallback; }
+    }
+
+    private static int parseIntOr(String text, int fallback) {
+        if (text == null) return fallback;
+        try { return Integer.parseInt(text.trim()); }
+        catch (NumberFormatException e) { return fallback; }
+    }
+
+    /**
+     * Runs one loader step and reports wall time and peak heap while it ran. Steps
+     * running side by side share the heap, so each one's peak covers all of them.
+     */
+    static void timed(String label, LoadStep step) throws Exception {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+        long start = System.nanoTime();
+        step.run();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
         }
+        System.out.printf("Loaded %s in %d ms (peak heap %.1f MB)%n", label, elapsedMs, peak / (1024.0 * 1024.0));
     }
 
+    interface LoadStep { void run() throws Exception; }
+
     // ── GUI builder ──────────────────────────────────────────────────────────
 
-    private void buildUI(double centerLat, double centerLng, String cityName) {
-        mapViewer = new JXMapViewer();
+    private void buildUI(GeoPosition center, String cityName) {
+        // Times every map frame, tiles included, for the gesture frame budget
+        mapViewer = new JXMapViewer() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                long start = System.nanoTime();
+                super.paintComponent(g);
+                overlay.frameTimes.record(System.nanoTime() - start, overlay.isInteractive());
+            }
+        };
         TileFactoryInfo info = new OSMTileFactoryInfo("CartoDB", "https://a.basemaps.cartocdn.com/light_all");
-        DefaultTileFactory tileFactory = new DefaultTileFactory(info);
-        tileFactory.setThreadPoolSize(4);
-        mapViewer.setTileFactory(tileFactory);
-        mapViewer.setAddressLocation(new GeoPosition(centerLat, centerLng));
+        TileScheduler tiles = TileStore.shared().factory(info);
+        tiles.watch(mapViewer);
+        mapViewer.setTileFactory(tiles);
+        mapViewer.setAddressLocation(center);
         mapViewer.setZoom(7);
 
-        mapViewer.setOverlayPainter(new CompoundPainter<>(buildPainters()));
+        // Warm the tile cache for the whole city at this zoom and the ones either side
+        double[] bounds = overlay.bounds();
+        TileStore.shared().prefetch(info, bounds[0], bounds[1], bounds[2], bounds[3], mapViewer.getZoom());
+
+        mapViewer.setOverlayPainter(overlay.painter());
+
+        // Drags and wheel zooms paint cheap gesture frames until input has been idle for a moment
+        refineTimer = new javax.swing.Timer(REFINE_DELAY_MS, e -> {
+            overlay.setInteractive(false);
+            mapViewer.repaint();
+        });
+        refineTimer.setRepeats(false);
+        mapViewer.addMouseMotionListener(new MouseAdapter() {
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                gesture();
+            }
+        });
 
         PanMouseInputListener panListener = new PanMouseInputListener(mapViewer);
         mapViewer.addMouseListener(panListener);
         mapViewer.addMouseMotionListener(panListener);
         mapViewer.addMouseWheelListener(e -> {
+            gesture();
             zoomAccumulator += e.getPreciseWheelRotation();
             if (Math.abs(zoomAccumulator) >= 5) {
                 int steps = (int) (zoomAccumulator / 5);
@@ -246,32 +297,29 @@ public class UrbEx extends JFrame {
         mapViewer.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                TownRegion hit = findRegionAt(mapViewer.convertPointToGeoPosition(e.getPoint()));
+                TownRegion hit = overlay.findRegionAt(mapViewer.convertPointToGeoPosition(e.getPoint()));
                 if (hit != null) cycleClaim(hit);
             }
         });
 
+        buildHoverPopup();
+        hoverHitTest = new javax.swing.Timer(HOVER_HIT_TEST_MS, e -> hoverAt(hoverPoint));
+        hoverHitTest.setRepeats(false);
+        hoverTimer = new javax.swing.Timer(HOVER_POPUP_DELAY_MS, e -> showHoverPopup(hoveredRegion, hoverScreenPos));
+        hoverTimer.setRepeats(false);
         MouseAdapter hoverAdapter = new MouseAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
-                TownRegion region = findRegionAt(mapViewer.convertPointToGeoPosition(e.getPoint()));
-                if (region != hoveredRegion) {
-                    hoveredRegion = region;
-                    if (hoverTimer != null) hoverTimer.stop();
-                    hidePopup();
-                    if (region != null) {
-                        lastMouseScreenPos = e.getLocationOnScreen();
-                        hoverTimer = new javax.swing.Timer(1000, ev -> showHoverPopup(region, lastMouseScreenPos));
-                        hoverTimer.setRepeats(false);
-                        hoverTimer.start();
-                    }
-                }
+                hoverPoint.setLocation(e.getX(), e.getY());
+                hoverScreenPos.setLocation(e.getXOnScreen(), e.getYOnScreen());
+                if (!hoverHitTest.isRunning()) hoverHitTest.start();
             }
 
             @Override
             public void mouseExited(MouseEvent e) {
+                hoverHitTest.stop();
+                hoverTimer.stop();
                 hoveredRegion = null;
-                if (hoverTimer != null) hoverTimer.stop();
                 hidePopup();
             }
         };
@@ -286,9 +334,9 @@ public class UrbEx extends JFrame {
         JToggleButton busToggle     = new JToggleButton("Bus Lines",      true);
         JToggleButton stationToggle = new JToggleButton("Train Stations", true);
         JToggleButton busStopToggle = new JToggleButton("Bus Stops",      true);
-        busToggle.addActionListener(e     -> { showBusLines      = busToggle.isSelected();     mapViewer.repaint(); });
-        stationToggle.addActionListener(e -> { showTrainStations = stationToggle.isSelected(); mapViewer.repaint(); });
-        busStopToggle.addActionListener(e -> { showBusStops      = busStopToggle.isSelected(); mapViewer.repaint(); });
+        busToggle.addActionListener(e     -> { overlay.showBusLines      = busToggle.isSelected();     mapViewer.repaint(); });
+        stationToggle.addActionListener(e -> { overlay.showTrainStations = stationToggle.isSelected(); mapViewer.repaint(); });
+        busStopToggle.addActionListener(e -> { overlay.showBusStops      = busStopToggle.isSelected(); mapViewer.repaint(); });
 
         JPanel controls = new JPanel(new FlowLayout());
         controls.add(statsBtn);
@@ -307,143 +355,33 @@ public class UrbEx extends JFrame {
         setVisible(true);
     }
 
-    // ── Painters ─────────────────────────────────────────────────────────────
-
-    private List<Painter<JXMapViewer>> buildPainters() {
-        List<Painter<JXMapViewer>> painters = new ArrayList<>();
-
-        for (TownRegion region : regions) {
-            painters.add((g2, map, w, h) -> {
-                Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
-                for (List<GeoPosition> ring : region.rings) {
-                    boolean first = true;
-                    for (GeoPosition gp : ring) {
-                        Point2D pt = map.convertGeoPositionToPoint(gp);
-                        if (first) { path.moveTo(pt.getX(), pt.getY()); first = false; }
-                        else path.lineTo(pt.getX(), pt.getY());
-                    }
-                    path.closePath();
-                }
-
-                Color fill = switch (region.claimState) {
-                    case 1  -> new Color(0, 255, 0, 80);
-                    case 2  -> new Color(255, 0, 0, 80);
-                    default -> new Color(200, 200, 255, 60);
-                };
-
-                g2.setColor(fill);
-                g2.fill(path);
-                g2.setColor(Color.DARK_GRAY);
-                g2.setStroke(new BasicStroke(1.5f));
-                g2.draw(path);
-
-                // Label at centroid
-                /* double avLat = 0, avLon = 0;
-                int count = 0;
-                for (List<GeoPosition> ring : region.rings) {
-                    avLat += ring.stream().mapToDouble(GeoPosition::getLatitude).average().orElse(0);
-                    avLon += ring.stream().mapToDouble(GeoPosition::getLongitude).average().orElse(0);
-                    count++;
-                }
-                Point2D center = map.convertGeoPositionToPoint(new GeoPosition(avLat / count, avLon / count));
-                g2.setColor(Color.BLACK);
-                g2.setFont(new Font("SansSerif", Font.BOLD, 11));
-                g2.drawString(region.name, (float) center.getX() - 20, (float) center.getY());
-                */
-            });
-        }
-
-        for (TransitLine line : transitLines) {
-            painters.add((g2, map, w, h) -> {
-                g2.setColor(line.color);
-                g2.setStroke(new BasicStroke(3f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                for (List<GeoPosition> segment : line.segments) {
-                    Path2D path = new Path2D.Double();
-                    boolean first = true;
-                    for (GeoPosition gp : segment) {
-                        Point2D pt = map.convertGeoPositionToPoint(gp);
-                        if (first) { path.moveTo(pt.getX(), pt.getY()); first = false; }
-                        else path.lineTo(pt.getX(), pt.getY());
-                    }
-                    g2.draw(path);
-                }
-            });
-        }
-
-        painters.add((g2, map, w, h) -> {
-            if (!showBusLines) return;
-            g2.setStroke(new BasicStroke(1.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            for (TransitLine line : busLines) {
-                g2.setColor(new Color(line.color.getRed(), line.color.getGreen(), line.color.getBlue(), 160));
-                for (List<GeoPosition> segment : line.segments) {
-                    Path2D path = new Path2D.Double();
-                    boolean first = true;
-                    for (GeoPosition gp : segment) {
-                        Point2D pt = map.convertGeoPositionToPoint(gp);
-                        if (first) { path.moveTo(pt.getX(), pt.getY()); first = false; }
-                        else path.lineTo(pt.getX(), pt.getY());
-                    }
-                    g2.draw(path);
-                }
-            }
-        });
-
-        painters.add((g2, map, w, h) -> {
-            if (!showTrainStations) return;
-            for (GeoPosition pos : trainStations) {
-                Point2D pt = map.convertGeoPositionToPoint(pos);
-                int x = (int) pt.getX(), y = (int) pt.getY();
-                g2.setColor(new Color(40, 40, 40));
-                g2.fillOval(x - 5, y - 5, 10, 10);
-                g2.setColor(Color.WHITE);
-                g2.fillOval(x - 3, y - 3, 6, 6);
-            }
-        });
-
-        painters.add((g2, map, w, h) -> {
-            if (!showBusStops) return;
-            g2.setColor(new Color(30, 144, 255, 180));
-            for (GeoPosition pos : busStops) {
-                Point2D pt = map.convertGeoPositionToPoint(pos);
-                int x = (int) pt.getX(), y = (int) pt.getY();
-                g2.fillOval(x - 2, y - 2, 4, 4);
-            }
-        });
-
-        return painters;
+    /** The throttled hover hit test: on a region change, hides the popup and restarts its delay. */
+    private void hoverAt(Point p) {
+        TownRegion region = overlay.findRegionAt(mapViewer.convertPointToGeoPosition(p));
+        if (region == hoveredRegion) return;
+        hoveredRegion = region;
+        hidePopup();
+        if (region != null) hoverTimer.restart();
+        else hoverTimer.stop();
     }
 
-    // ── Hit testing ──────────────────────────────────────────────────────────
-
-    private TownRegion findRegionAt(GeoPosition clicked) {
-        Point2D clickPt = mapViewer.convertGeoPositionToPoint(clicked);
-
-        for (TownRegion region : regions) {
-            Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
-            for (List<GeoPosition> ring : region.rings) {
-                boolean first = true;
-                for (GeoPosition gp : ring) {
-                    Point2D pt = mapViewer.convertGeoPositionToPoint(gp);
-                    if (first) { path.moveTo(pt.getX(), pt.getY()); first = false; }
-                    else path.lineTo(pt.getX(), pt.getY());
-                }
-                path.closePath();
-            }
-            if (path.contains(clickPt)) return region;
-        }
-        return null;
+    private void gesture() {
+        overlay.setInteractive(true);
+        refineTimer.restart();
     }
 
     // ── Claim logic ──────────────────────────────────────────────────────────
 
     private void cycleClaim(TownRegion region) {
         region.claimState = (region.claimState + 1) % 3;
+        overlay.claimChanged(region);
         switch (region.claimState) {
             case 1 -> { t2_towns.remove(region.name); t1_towns.put(region.name, region); }
             case 2 -> { t1_towns.remove(region.name); t2_towns.put(region.name, region); }
             case 0 -> { t1_towns.remove(region.name); t2_towns.remove(region.name); }
         }
-        mapViewer.repaint();
+        // Only the town's own rectangle needs redrawing; everything else is unchanged
+        mapViewer.repaint(overlay.screenBounds(region, mapViewer));
     }
 
     // ── Stats ─────────────────────────────────────────────────────────────────
@@ -469,9 +407,9 @@ public class UrbEx extends JFrame {
 
     // ── Hover popup ───────────────────────────────────────────────────────────
 
-    private void showHoverPopup(TownRegion region, Point screenPos) {
-        hidePopup();
+    private void buildHoverPopup() {
         hoverPopup = new JWindow(this);
+        hoverPopup.setFocusableWindowState(false);
 
         JPanel panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
@@ -480,51 +418,27 @@ public class UrbEx extends JFrame {
                 BorderFactory.createLineBorder(Color.GRAY),
                 BorderFactory.createEmptyBorder(6, 10, 6, 10)));
 
-        Font bold  = new Font("SansSerif", Font.BOLD, 12);
-        Font plain = new Font("SansSerif", Font.PLAIN, 11);
-
-        JLabel nameLabel = new JLabel(region.name);
-        nameLabel.setFont(bold);
-        JLabel popLabel  = new JLabel("Population: " + region.population);
-        popLabel.setFont(plain);
-        JLabel areaLabel = new JLabel(String.format("Area: %.2f sq mi", computeAreaSqMiles(region)));
-        areaLabel.setFont(plain);
-
-        panel.add(nameLabel);
-        panel.add(popLabel);
-        panel.add(areaLabel);
-
+        popupName.setFont(POPUP_TITLE_FONT);
+        popupPopulation.setFont(POPUP_TEXT_FONT);
+        popupArea.setFont(POPUP_TEXT_FONT);
+        panel.add(popupName);
+        panel.add(popupPopulation);
+        panel.add(popupArea);
         hoverPopup.add(panel);
+    }
+
+    private void showHoverPopup(TownRegion region, Point screenPos) {
+        if (region == null) return;
+        popupName.setText(region.name);
+        popupPopulation.setText("Population: " + region.population);
+        popupArea.setText(String.format("Area: %.2f sq mi", region.metrics.areaSqMiles()));
         hoverPopup.pack();
         hoverPopup.setLocation(screenPos.x + 15, screenPos.y + 15);
         hoverPopup.setVisible(true);
     }
 
     private void hidePopup() {
-        if (hoverPopup != null) {
-            hoverPopup.dispose();
-            hoverPopup = null;
-        }
-    }
-
-    private double computeAreaSqMiles(TownRegion region) {
-        double totalAreaDeg2 = 0;
-        for (List<GeoPosition> ring : region.rings) {
-            double area = 0;
-            int n = ring.size();
-            for (int i = 0; i < n; i++) {
-                GeoPosition a = ring.get(i);
-                GeoPosition b = ring.get((i + 1) % n);
-                area += a.getLongitude() * b.getLatitude() - b.getLongitude() * a.getLatitude();
-            }
-            totalAreaDeg2 += Math.abs(area) / 2.0;
-        }
-        double avgLat = region.rings.stream()
-                .flatMap(List::stream)
-                .mapToDouble(GeoPosition::getLatitude)
-                .average().orElse(0);
-        double areaSqKm = totalAreaDeg2 * 111.32 * 111.32 * Math.cos(Math.toRadians(avgLat));
-        return areaSqKm * 0.386102;
+        if (hoverPopup.isVisible()) hoverPopup.setVisible(false);
     }
 
     // ── Entry point ──────────────────────────────────────────────────────────
@@ -0,0 +1,136 @@
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.painter.Painter;
+import org.jxmapviewer.viewer.DefaultTileFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CityOverlay's gesture frames over the bundled Chicago data, headless: a
+ * gesture frame is the last full frame moved to the current view, the area it
+ * scrolls in is filled from the cached layers, and going idle brings back the
+ * full frame. DragFrameCheck in the bench sources times the same frames.
+ */
+class CityOverlayGestureTest {
+
+    private static final int WIDTH = 900, HEIGHT = 700, ZOOM = 6, DX = 25, DY = 10;
+
+    private static CityOverlay city;
+    private static Painter<JXMapViewer> painter;
+    private JXMapViewer map;
+
+    @BeforeAll
+    static void loadCity() throws Exception {
+        city = new CityOverlay();
+        UrbEx.loadFromGeoJson("data/Chicago.geojson", city.regions, city.transitLines);
+        UrbEx.loadBusLines("data/chicago_buses.geojson", city.busLines);
+        city.trainStations = UrbEx.loadPoints("data/chicago_stations.geojson");
+        city.prepare();
+        painter = city.painter();
+    }
+
+    @BeforeEach
+    void freshView() {
+        city.setInteractive(false);
+        map = new JXMapViewer();
+        map.setTileFactory(new DefaultTileFactory(
+                new OSMTileFactoryInfo("CartoDB", "https://a.basemaps.cartocdn.com/light_all")));
+        map.setSize(WIDTH, HEIGHT);
+        map.setZoom(ZOOM);
+        map.setAddressLocation(city.center());
+    }
+
+    @Test
+    void gestureFrameIsTheLastFullFrameMoved() {
+        BufferedImage full = paint();
+        city.setInteractive(true);
+        pan(DX, DY);
+        BufferedImage gesture = paint();
+        for (int y = 0; y < HEIGHT - DY; y++) {
+            for (int x = 0; x < WIDTH - DX; x++) {
+                assertEquals(full.getRGB(x + DX, y + DY), gesture.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void scrolledInAreaIsFilledFromTheCachedLayers() {
+        paint(); // renders and caches the raster tiles around the view
+        city.setInteractive(true);
+        paint();
+        pan(DX, DY);
+        BufferedImage gesture = paint();
+        city.setInteractive(false);
+        BufferedImage full = paint();
+
+        // The strips the snapshot no longer covers, along the right and bottom edges
+        int painted = 0, differing = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = y >= HEIGHT - DY ? 0 : WIDTH - DX; x < WIDTH; x++) {
+                if (full.getRGB(x, y) >>> 24 != 0) painted++;
+                if (gesture.getRGB(x, y) != full.getRGB(x, y)) differing++;
+            }
+        }
+        assertTrue(painted > 0, "the full frame draws something there");
+        assertEquals(0, differing, "scrolled-in pixels that differ from the full frame");
+    }
+
+    @Test
+    void goingIdleRepaintsAtFullQuality() {
+        pan(DX, DY);
+        map.setZoom(ZOOM + 1);
+        BufferedImage expected = paint();
+        freshView();
+
+        city.setInteractive(true);
+        paint();
+        pan(DX, DY);
+        map.setZoom(ZOOM + 1);
+        paint();
+        city.setInteractive(false);
+        assertSameImage(expected, paint());
+    }
+
+    @Test
+    void zoomingPastTheSnapshotFallsBackToFullFrames() {
+        map.setZoom(ZOOM + 3);
+        BufferedImage expected = paint();
+        freshView();
+
+        city.setInteractive(true);
+        paint();
+        map.setZoom(ZOOM + 3);
+        assertSameImage(expected, paint());
+    }
+
+    private void pan(int dx, int dy) {
+        Point2D center = map.getCenter();
+        map.setCenter(new Point2D.Double(center.getX() + dx, center.getY() + dy));
+    }
+
+    private BufferedImage paint() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            painter.paint(g, map, WIDTH, HEIGHT);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+}
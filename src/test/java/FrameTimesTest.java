@@ -0,0 +1,31 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameTimesTest {
+
+    @Test
+    void keepsGestureAndFullFramesApart() {
+        FrameTimes times = new FrameTimes();
+        for (int i = 1; i <= 100; i++) times.record(i * 1_000_000L, true);
+        times.record(40_000_000L, false);
+        assertEquals(95.0, times.p95Millis(true));
+        assertEquals(40.0, times.p95Millis(false));
+        assertEquals(100 - 16, times.overBudget(true));
+        assertEquals(1, times.overBudget(false));
+    }
+
+    @Test
+    void percentileCoversOnlyTheLastWindow() {
+        FrameTimes times = new FrameTimes();
+        for (int i = 0; i < 500; i++) times.record(50_000_000L, true);
+        for (int i = 0; i < 120; i++) times.record(2_000_000L, true);
+        assertEquals(2.0, times.p95Millis(true));
+        assertEquals(500, times.overBudget(true), "over-budget frames count since startup");
+    }
+
+    @Test
+    void noFramesIsZero() {
+        assertEquals(0.0, new FrameTimes().p95Millis(false));
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The offline gazetteer against gazetteer/cities1000_sample.txt, a small
+ * GeoNames-format fixture (ids are local to the file), and its k-d tree against
+ * a full haversine scan over a synthetic dump.
+ */
+class GazetteerTest {
+
+    private static Gazetteer sample;
+
+    @BeforeAll
+    static void loadSample() throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                GazetteerTest.class.getResourceAsStream("/gazetteer/cities1000_sample.txt"), StandardCharsets.UTF_8))) {
+            sample = Gazetteer.read(in);
+        }
+    }
+
+    @Test
+    void readsEveryPlace() {
+        assertEquals(36, sample.size());
+    }
+
+    @Test
+    void nameLookupIsFilteredByState() {
+        int il = sample.find("springfield", "US", "IL"), mo = sample.find("Springfield", "US", "MO");
+        assertTrue(il >= 0);
+        assertEquals("IL", sample.admin1(il));
+        assertTrue(mo >= 0 && mo != il);
+        assertEquals("MO", sample.admin1(mo));
+        assertTrue(sample.find("Chicago", "US", "IN") < 0, "no match outside the state");
+    }
+
+    @Test
+    void withoutAStateTheMostPopulousMatchWins() {
+        int id = sample.find("Springfield", "US", null);
+        assertEquals("Springfield", sample.name(id));
+        assertEquals(159498, sample.population(id));
+    }
+
+    @Test
+    void asciiNamesAreIndexed() {
+        assertEquals(sample.find("Peñasco", "US", "NM"), sample.find("Penasco", "US", "NM"));
+    }
+
+    @Test
+    void nearbyIsNearestFirstWithinRadiusAndState() {
+        int chicago = sample.find("Chicago", "US", "IL");
+        int[] near = sample.nearby(sample.lat(chicago), sample.lng(chicago), 25, "US", "IL", 50);
+        assertEquals(chicago, near[0], "the town itself comes first");
+        assertTrue(names(sample, near).containsAll(List.of("Evanston", "Oak Park", "Cicero", "Skokie")));
+        assertFalse(names(sample, near).contains("Naperville"), "out of range");
+        assertFalse(names(sample, near).contains("Hammond"), "in another state");
+
+        int[] anyState = sample.nearby(sample.lat(chicago), sample.lng(chicago), 40, "US", null, 50);
+        assertTrue(names(sample, anyState).contains("Hammond"));
+        assertEquals(3, sample.nearby(sample.lat(chicago), sample.lng(chicago), 40, "US", "IL", 3).length);
+    }
+
+    @Test
+    void kdTreeMatchesTheLinearScan() throws IOException {
+        Gazetteer g = synthetic(20_000, new Random(42));
+        Random rnd = new Random(1);
+        for (int radius : new int[] {8, 40, 400}) {
+            for (int q = 0; q < 500; q++) {
+                int p = rnd.nextInt(g.size());
+                int[] tree = g.nearby(g.lat(p), g.lng(p), radius, g.country(p), g.admin1(p), 10_000);
+                assertArrayEquals(linearNearby(g, g.lat(p), g.lng(p), radius, g.country(p), g.admin1(p), 10_000), tree,
+                        "place " + p + " within " + radius + " km");
+            }
+        }
+    }
+
+    /** Places clustered around metros, plus a scatter; states are 5 degree cells. */
+    private static Gazetteer synthetic(int size, Random rnd) throws IOException {
+        double[][] metros = new double[300][];
+        for (int m = 0; m < metros.length; m++) {
+            metros[m] = new double[] {-40 + rnd.nextDouble() * 100, -180 + rnd.nextDouble() * 360};
+        }
+        StringBuilder tsv = new StringBuilder(size * 80);
+        for (int i = 0; i < size; i++) {
+            double lat, lng;
+            if (i % 10 < 7) {
+                double[] metro = metros[rnd.nextInt(metros.length)];
+                lat = Math.max(-89, Math.min(89, metro[0] + rnd.nextGaussian() * 0.4));
+                lng = Math.max(-180, Math.min(180, metro[1] + rnd.nextGaussian() * 0.5));
+            } else {
+                lat = -55 + rnd.nextDouble() * 125;
+                lng = -180 + rnd.nextDouble() * 360;
+            }
+            String state = "S" + (int) Math.floor((lat + 90) / 5) + "_" + (int) Math.floor((lng + 180) / 5);
+            tsv.append(i).append("\tPlace ").append(i).append("\tPlace ").append(i).append("\t\t")
+               .append(lat).append('\t').append(lng).append("\tP\tPPL\tXX\t\t").append(state)
+               .append("\t\t\t\t").append(1000 + rnd.nextInt(100_000)).append("\t\t0\tUTC\t2024-01-01\n");
+        }
+        return Gazetteer.read(new BufferedReader(new StringReader(tsv.toString())));
+    }
+
+    /** Gazetteer.nearby without the k-d tree: every place, through the haversine. */
+    private static int[] linearNearby(Gazetteer g, double lat, double lng, double radiusKm,
+                                      String country, String admin1, int maxRows) {
+        Gazetteer.Hits hits = new Gazetteer.Hits();
+        for (int id = 0; id < g.size(); id++) {
+            if (!g.in(id, country, admin1)) continue;
+            double d = Gazetteer.distanceKm(lat, lng, g.lat(id), g.lng(id));
+            if (d <= radiusKm) hits.add(id, d);
+        }
+        return hits.nearest(maxRows);
+    }
+
+    private static List<String> names(Gazetteer g, int[] ids) {
+        return Arrays.stream(ids).mapToObj(g::name).toList();
+    }
+}
@@ -0,0 +1,22 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpCacheTest {
+
+    @Test
+    void geoNamesErrorsAreNotResults() {
+        assertFalse(HttpCache.isGeoNamesResult(
+                "{\"status\":{\"message\":\"the hourly limit of 1000 credits for demo has been exceeded\",\"value\":19}}"));
+        assertFalse(HttpCache.isGeoNamesResult("<html>busy</html>"));
+        assertFalse(HttpCache.isGeoNamesResult("[]"));
+    }
+
+    @Test
+    void aStatusFieldInsideTheResultsIsStillAResult() {
+        assertTrue(HttpCache.isGeoNamesResult("{\"geonames\":[]}"));
+        assertTrue(HttpCache.isGeoNamesResult(
+                "{\"totalResultsCount\":1,\"geonames\":[{\"name\":\"Evanston\",\"status\":{\"code\":\"active\"}}]}"));
+        assertTrue(HttpCache.isGeoNamesResult("{\"geonames\":[],\"status\":\"ok\"}"));
+    }
+}
@@ -0,0 +1,228 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * OverpassFetcher against a local stub of the Overpass API that replays a
+ * recorded "out geom" response (overpass/towns.json, see data/record_overpass.py).
+ * Each tile gets the recorded relations whose bounds reach into its bbox, as
+ * Overpass would select them. Every fourth request gets a 429 and every seventh
+ * a 504; with remarkEvery set, every such request of the rest gets its 200 reply
+ * ended by an Overpass error remark, as a query timed out on the server would.
+ */
+class OverpassFetcherTest {
+
+    private static final Pattern BBOX = Pattern.compile("\\((-?[\\d.]+),(-?[\\d.]+),(-?[\\d.]+),(-?[\\d.]+)\\)");
+    private static final double LAT = 41.84, LNG = -87.68;
+    private static final int RADIUS = 12_000, CONCURRENCY = 4;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static JsonNode recorded;
+    private static ObjectNode header; // the recording minus its elements
+    private static HttpServer server;
+    private static String url;
+
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+    private static final AtomicInteger rejected = new AtomicInteger();
+    private static final AtomicInteger remarked = new AtomicInteger();
+    private static volatile int remarkEvery;
+
+    private HttpCache cache;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        try (InputStream in = OverpassFetcherTest.class.getResourceAsStream("/overpass/towns.json")) {
+            header = (ObjectNode) JSON.readTree(in);
+            recorded = header.remove("elements");
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/interpreter", OverpassFetcherTest::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/interpreter";
+    }
+
+    @AfterAll
+    static void stopStub() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    @BeforeEach
+    void freshCache() throws IOException {
+        cache = new HttpCache(Files.createTempDirectory("overpass-stub"), 3_600_000, 64 << 20);
+        reset();
+    }
+
+    @Test
+    void tiledFetchMergesToTheSingleQueryTowns() throws Exception {
+        List<SuburbanScrambleMAP.TownRegion> single =
+                new OverpassFetcher(url, 1, 1e9, 10, 5, cache).fetchTowns(LAT, LNG, RADIUS);
+        OverpassFetcher tiledFetcher = new OverpassFetcher(url, CONCURRENCY, 4000, 10, 5, cache);
+        assertTrue(tiledFetcher.tiles(LAT, LNG, RADIUS).size() > 1);
+        List<SuburbanScrambleMAP.TownRegion> tiled = tiledFetcher.fetchTowns(LAT, LNG, RADIUS);
+
+        assertFalse(single.isEmpty(), "stub returned towns");
+        assertTrue(single.size() < recorded.size(), "towns outside the radius are dropped");
+        assertEquals(names(single), names(tiled));
+    }
+
+    @Test
+    void concurrencyStaysUnderTheCap() throws Exception {
+        new OverpassFetcher(url, CONCURRENCY, 4000, 10, 5, cache).fetchTowns(LAT, LNG, RADIUS);
+        assertTrue(maxInFlight.get() <= CONCURRENCY, "at most " + CONCURRENCY + " in flight, saw " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "tiles were fetched concurrently");
+    }
+
+    @Test
+    void rejectedRequestsAreRetried() throws Exception {
+        OverpassFetcher fetcher = new OverpassFetcher(url, CONCURRENCY, 4000, 10, 5, cache);
+        int tiles = fetcher.tiles(LAT, LNG, RADIUS).size();
+        fetcher.fetchTowns(LAT, LNG, RADIUS);
+        assertTrue(rejected.get() > 0);
+        assertEquals(tiles + rejected.get(), requests.get());
+    }
+
+    @Test
+    void repliesEndingInAnErrorRemarkAreRetried() throws Exception {
+        List<SuburbanScrambleMAP.TownRegion> single =
+                new OverpassFetcher(url, 1, 1e9, 10, 5, cache).fetchTowns(LAT, LNG, RADIUS);
+        cache = new HttpCache(Files.createTempDirectory("overpass-stub"), 3_600_000, 64 << 20);
+        reset();
+        remarkEvery = 3;
+        OverpassFetcher fetcher = new OverpassFetcher(url, CONCURRENCY, 4000, 10, 5, cache);
+        int tiles = fetcher.tiles(LAT, LNG, RADIUS).size();
+        List<SuburbanScrambleMAP.TownRegion> tiled = fetcher.fetchTowns(LAT, LNG, RADIUS);
+        assertTrue(remarked.get() > 0);
+        assertEquals(tiles + rejected.get() + remarked.get(), requests.get());
+        assertEquals(names(single), names(tiled));
+
+        // Only the clean replies were cached
+        reset();
+        assertEquals(names(tiled), names(fetcher.fetchTowns(LAT, LNG, RADIUS)));
+        assertEquals(0, requests.get());
+    }
+
+    @Test
+    void repeatedFetchComesFromTheCache() throws Exception {
+        OverpassFetcher fetcher = new OverpassFetcher(url, CONCURRENCY, 4000, 10, 5, cache);
+        List<SuburbanScrambleMAP.TownRegion> first = fetcher.fetchTowns(LAT, LNG, RADIUS);
+        reset();
+        List<SuburbanScrambleMAP.TownRegion> again = fetcher.fetchTowns(LAT, LNG, RADIUS);
+        assertEquals(0, requests.get());
+        assertEquals(names(first), names(again));
+    }
+
+    @Test
+    void defaultTilesKeepTheUsualRadiusToOneQuery() {
+        OverpassFetcher defaults = OverpassFetcher.fromSystemProperties();
+        assertEquals(1, defaults.tiles(LAT, LNG, (int) (10 * 1609.34)).size(), "a 10 mile game");
+        assertTrue(defaults.tiles(LAT, LNG, (int) (30 * 1609.34)).size() > 1, "a 30 mile one is tiled");
+    }
+
+    @Test
+    void retryAfterAcceptsSecondsAndDates() {
+        long now = ZonedDateTime.of(2026, 4, 23, 17, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        String later = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.of(2026, 4, 23, 17, 0, 30, 0, ZoneOffset.UTC));
+        assertEquals(7_000, OverpassFetcher.retryAfterMillis(" 7 ", now));
+        assertEquals(30_000, OverpassFetcher.retryAfterMillis(later, now));
+        assertEquals(120_000, OverpassFetcher.retryAfterMillis("86400", now), "capped");
+        assertEquals(0, OverpassFetcher.retryAfterMillis("soon", now));
+        assertEquals(0, OverpassFetcher.retryAfterMillis(null, now));
+        assertEquals(0, OverpassFetcher.retryAfterMillis("-5", now));
+    }
+
+    private static List<String> names(List<SuburbanScrambleMAP.TownRegion> towns) {
+        List<String> names = new ArrayList<>();
+        for (SuburbanScrambleMAP.TownRegion t : towns) names.add(t.name + "/" + t.rings.vertexCount());
+        return names;
+    }
+
+    private static void reset() {
+        requests.set(0);
+        maxInFlight.set(0);
+        rejected.set(0);
+        remarked.set(0);
+        remarkEvery = 0;
+    }
+
+    // ── Stub server ──────────────────────────────────────────────────────────
+
+    private static void handle(HttpExchange ex) throws IOException {
+        int n = requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try (ex) {
+            Thread.sleep(30); // long enough for concurrent tiles to overlap
+            String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String query = URLDecoder.decode(body.substring(body.indexOf('=') + 1), StandardCharsets.UTF_8);
+            Matcher m = BBOX.matcher(query);
+
+            int reject = n % 4 == 0 ? 429 : n % 7 == 0 ? 504 : 0;
+            if (reject != 0 || !m.find()) {
+                if (reject != 0) rejected.incrementAndGet();
+                ex.getResponseHeaders().add("Retry-After", "0");
+                ex.sendResponseHeaders(reject != 0 ? reject : 400, -1);
+                return;
+            }
+            boolean remark = remarkEvery > 0 && n % remarkEvery == 0;
+            if (remark) remarked.incrementAndGet();
+            byte[] response = replay(Double.parseDouble(m.group(1)), Double.parseDouble(m.group(2)),
+                    Double.parseDouble(m.group(3)), Double.parseDouble(m.group(4)), remark);
+            ex.getResponseHeaders().add("Content-Type", "application/json");
+            ex.sendResponseHeaders(200, response.length);
+            try (OutputStream os = ex.getResponseBody()) {
+                os.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /** The recording with only the relations whose bounds touch the bbox, and optionally a trailing error remark. */
+    private static byte[] replay(double south, double west, double north, double east, boolean remark)
+            throws IOException {
+        ObjectNode out = header.deepCopy();
+        ArrayNode elements = out.putArray("elements");
+        for (JsonNode e : recorded) {
+            JsonNode b = e.get("bounds");
+            if (b.get("minlat").asDouble() <= north && b.get("maxlat").asDouble() >= south
+                    && b.get("minlon").asDouble() <= east && b.get("maxlon").asDouble() >= west) {
+                elements.add(e);
+            }
+        }
+        if (remark) out.put("remark", "runtime error: Query timed out in \"query\" at line 1 after 90 seconds.");
+        return JSON.writeValueAsBytes(out);
+    }
+}
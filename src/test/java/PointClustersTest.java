@@ -0,0 +1,97 @@
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+import org.jxmapviewer.viewer.util.GeoUtil;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Point2D;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PointClusters over synthetic bus-stop layers scattered around Chicago, looked at
+ * through a 900x700 view over the center. PointClusterCheck in the bench sources
+ * times the level builds for the same layers up to a million stops.
+ */
+class PointClustersTest {
+
+    private static final int WIDTH = 900, HEIGHT = 700, CELL_PX = 40, MARGIN_PX = 16;
+    private static final double LAT = 41.84, LNG = -87.68;
+    private static final TileFactoryInfo INFO =
+            new OSMTileFactoryInfo("CartoDB", "https://a.basemaps.cartocdn.com/light_all");
+
+    @Test
+    void everyStopIsCountedOnceAtEveryZoom() {
+        PointClusters clusters = new PointClusters(scatter(10_000, new Random(1)), CELL_PX);
+        for (int zoom = INFO.getMinimumZoomLevel(); zoom <= INFO.getMaximumZoomLevel(); zoom++) {
+            PointClusters.Level level = clusters.at(INFO, zoom);
+            long total = 0;
+            for (int i = 0; i < level.size; i++) total += level.count[i];
+            assertEquals(10_000, total, "zoom " + zoom);
+        }
+    }
+
+    @Test
+    void detailedZoomsKeepEveryStop() {
+        PointClusters clusters = new PointClusters(scatter(1_000, new Random(2)), CELL_PX);
+        for (int zoom = INFO.getMinimumZoomLevel(); zoom < INFO.getMinimumZoomLevel() + 3; zoom++) {
+            assertEquals(1_000, clusters.at(INFO, zoom).size, "zoom " + zoom);
+        }
+        assertTrue(clusters.at(INFO, 12).size < 1_000);
+    }
+
+    @Test
+    void mergedViewsStayUnderTheGridBoundWhateverTheStopCount() {
+        int bound = (WIDTH / CELL_PX + 2) * (HEIGHT / CELL_PX + 2);
+        for (int n : new int[] {1_000, 100_000}) {
+            PointClusters clusters = new PointClusters(scatter(n, new Random(n)), CELL_PX);
+            for (int zoom = INFO.getMinimumZoomLevel(); zoom <= 12; zoom++) {
+                PointClusters.Level level = clusters.at(INFO, zoom);
+                if (level.size < n) assertTrue(inView(level, zoom) <= bound, n + " stops at zoom " + zoom);
+            }
+        }
+    }
+
+    @Test
+    void fromAndToBracketTheClustersInAnXRange() {
+        PointClusters.Level level = new PointClusters(scatter(5_000, new Random(3)), CELL_PX).at(INFO, 8);
+        Point2D c = GeoUtil.getBitmapCoordinate(LAT, LNG, 8, INFO);
+        double minX = c.getX() - WIDTH / 2.0, maxX = c.getX() + WIDTH / 2.0;
+        int from = level.from(minX), to = level.to(maxX), expected = 0;
+        for (int i = 0; i < level.size; i++) {
+            double px = Math.floor(level.x[i]);
+            boolean in = px >= Math.floor(minX) && px <= Math.floor(maxX);
+            if (in) expected++;
+            assertEquals(in, i >= from && i < to, "cluster " + i);
+        }
+        assertTrue(expected > 0);
+    }
+
+    private static int inView(PointClusters.Level level, int zoom) {
+        Point2D c = GeoUtil.getBitmapCoordinate(LAT, LNG, zoom, INFO);
+        double minX = c.getX() - WIDTH / 2.0 - MARGIN_PX, maxX = c.getX() + WIDTH / 2.0 + MARGIN_PX;
+        double minY = c.getY() - HEIGHT / 2.0 - MARGIN_PX, maxY = c.getY() + HEIGHT / 2.0 + MARGIN_PX;
+        int inView = 0;
+        for (int i = level.from(minX), end = level.to(maxX); i < end; i++) {
+            if (level.x[i] >= minX && level.x[i] < maxX && level.y[i] >= minY && level.y[i] < maxY) inView++;
+        }
+        return inView;
+    }
+
+    /** n points in Gaussian blobs around the center, roughly city-sized. */
+    private static PackedGeometry scatter(int n, Random rnd) {
+        double[] coords = new double[n * 2];
+        int[] offsets = new int[n + 1];
+        double[][] blobs = new double[40][];
+        for (int b = 0; b < blobs.length; b++) {
+            blobs[b] = new double[] {LAT + rnd.nextGaussian() * 0.08, LNG + rnd.nextGaussian() * 0.08};
+        }
+        for (int i = 0; i < n; i++) {
+            double[] blob = blobs[rnd.nextInt(blobs.length)];
+            coords[i * 2] = blob[0] + rnd.nextGaussian() * 0.02;
+            coords[i * 2 + 1] = blob[1] + rnd.nextGaussian() * 0.02;
+            offsets[i + 1] = i + 1;
+        }
+        return new PackedGeometry(coords, offsets);
+    }
+}
@@ -0,0 +1,116 @@
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RegionBatch over a grid of square regions: claims moved one at a time must
+ * leave the same merged paths as a batch built from scratch, while only the
+ * moved regions' chunks are rebuilt.
+ */
+class RegionBatchTest {
+
+    private static final int ROWS = 12, COLS = 15, GROUPS = 3, ZOOM = 5;
+    private static final TileFactoryInfo INFO =
+            new OSMTileFactoryInfo("CartoDB", "https://a.basemaps.cartocdn.com/light_all");
+
+    private final List<PackedGeometry> squares = grid();
+    private final int[] claims = new int[squares.size()];
+    private final AtomicInteger pathsAppended = new AtomicInteger();
+
+    @Test
+    void movedRegionsMatchAFullRebuild() {
+        RegionBatch batch = batch(true);
+        batch.update(INFO, ZOOM, squares.size());
+        Random rnd = new Random(7);
+        for (int step = 0; step < 200; step++) {
+            int i = rnd.nextInt(squares.size());
+            claims[i] = (claims[i] + 1) % GROUPS;
+            batch.moved(i);
+            if (step % 5 == 0) {
+                batch.update(INFO, ZOOM, squares.size());
+                assertSamePaths(fresh(), batch);
+            }
+        }
+    }
+
+    @Test
+    void aMoveRebuildsOnlyTwoChunks() {
+        RegionBatch batch = batch(false);
+        batch.update(INFO, ZOOM, squares.size());
+        pathsAppended.set(0);
+        claims[100] = 2;
+        batch.moved(100);
+        batch.update(INFO, ZOOM, squares.size());
+        assertTrue(pathsAppended.get() <= RegionBatch.CHUNK, "appended " + pathsAppended.get() + " region paths");
+        assertTrue(batch.chunks() > 1);
+        assertSamePaths(fresh(), batch);
+    }
+
+    @Test
+    void outlinesAreOnlyRebuiltForANewZoom() {
+        RegionBatch batch = batch(true);
+        batch.update(INFO, ZOOM, squares.size());
+        Path2D before = new Path2D.Double(batch.outlines());
+        claims[3] = 1;
+        batch.moved(3);
+        batch.update(INFO, ZOOM, squares.size());
+        assertEquals(segments(before), segments(batch.outlines()));
+        batch.update(INFO, ZOOM + 1, squares.size());
+        assertNotEquals(segments(before), segments(batch.outlines()));
+    }
+
+    private RegionBatch batch(boolean withOutlines) {
+        return new RegionBatch(GROUPS, i -> {
+            pathsAppended.incrementAndGet();
+            return squares.get(i);
+        }, i -> claims[i], withOutlines);
+    }
+
+    private RegionBatch fresh() {
+        RegionBatch batch = new RegionBatch(GROUPS, squares::get, i -> claims[i], false);
+        batch.update(INFO, ZOOM, squares.size());
+        return batch;
+    }
+
+    private static void assertSamePaths(RegionBatch expected, RegionBatch actual) {
+        assertEquals(expected.chunks(), actual.chunks());
+        for (int g = 0; g < GROUPS; g++) {
+            for (int c = 0; c < expected.chunks(); c++) {
+                assertEquals(segments(expected.fill(g, c)), segments(actual.fill(g, c)), "group " + g + " chunk " + c);
+                assertEquals(expected.fillBounds(g, c), actual.fillBounds(g, c), "group " + g + " chunk " + c);
+            }
+        }
+    }
+
+    private static List<String> segments(Path2D path) {
+        List<String> out = new ArrayList<>();
+        double[] c = new double[6];
+        for (PathIterator it = path.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(c);
+            out.add(type + ":" + c[0] + "," + c[1]);
+        }
+        return out;
+    }
+
+    /** Adjacent 0.01 degree squares around Chicago, row by row. */
+    private static List<PackedGeometry> grid() {
+        List<PackedGeometry> squares = new ArrayList<>();
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLS; c++) {
+                double lat = 41.8 + r * 0.01, lng = -87.7 + c * 0.01;
+                squares.add(PackedGeometry.of(List.<double[]>of(
+                        new double[] {lat, lng, lat, lng + 0.01, lat + 0.01, lng + 0.01, lat + 0.01, lng})));
+            }
+        }
+        return squares;
+    }
+}
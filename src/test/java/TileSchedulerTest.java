@@ -0,0 +1,228 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.viewer.GeoPosition;
+import org.jxmapviewer.viewer.TileFactory;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TileScheduler against a local tile server stub that answers every tile after
+ * 50 ms. The map is painted headless every 16 ms, as a visible map would be, so
+ * each frame asks for its visible tiles. TileLoadCheck in the bench sources times
+ * the same bursts against JXMapViewer's FIFO pool.
+ */
+class TileSchedulerTest {
+
+    private static final int WIDTH = 900, HEIGHT = 700, FRAME_MS = 16;
+    private static final GeoPosition CHICAGO = new GeoPosition(41.84, -87.68);
+
+    private static HttpServer server;
+    private static byte[] png;
+    private static int tests;
+
+    // Each test loads from its own path; schedulers of earlier tests may still be loading off-screen tiles
+    private static volatile String path;
+    private static volatile boolean failing;
+    private TileFactoryInfo info;
+
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB), "png", out);
+        png = out.toByteArray();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", TileSchedulerTest::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    @BeforeEach
+    void reset() {
+        path = "/test" + ++tests;
+        info = new OSMTileFactoryInfo("stub", "http://127.0.0.1:" + server.getAddress().getPort() + path);
+        failing = false;
+        requests.set(0);
+        maxInFlight.set(0);
+    }
+
+    @Test
+    void zoomBurstDropsTheLevelsZoomedPast() throws Exception {
+        TileScheduler tiles = new TileScheduler(info);
+        JXMapViewer map = burst(tiles, true);
+        waitUntilLoaded(map);
+        assertTrue(tiles.cancelled > 0, tiles.stats());
+        assertEquals(0, tiles.failed);
+        tiles.dispose();
+    }
+
+    @Test
+    void everyLoadIsSettledOnce() throws Exception {
+        TileScheduler tiles = new TileScheduler(info);
+        JXMapViewer map = burst(tiles, false);
+        waitUntilLoaded(map);
+        waitUntil(() -> inFlight.get() == 0 && tiles.loaded + tiles.failed == requests.get());
+        Thread.sleep(200); // a tile settled twice would show up by now
+        assertTrue(tiles.loaded + tiles.failed <= requests.get(), tiles.stats());
+        tiles.dispose();
+    }
+
+    @Test
+    void loadsStayUnderAPinnedLimit() throws Exception {
+        TileScheduler tiles = new TileScheduler(info);
+        tiles.setMaxLoaders(4);
+        waitUntilLoaded(burst(tiles, false));
+        assertTrue(maxInFlight.get() <= 4, "saw " + maxInFlight.get() + " requests at once");
+        assertTrue(tiles.limit() <= 4);
+        tiles.dispose();
+    }
+
+    @Test
+    void steadyLoadsRaiseTheLimit() throws Exception {
+        TileScheduler tiles = new TileScheduler(info);
+        waitUntilLoaded(burst(tiles, false));
+        assertTrue(tiles.limit() > 4, tiles.stats());
+        tiles.dispose();
+    }
+
+    @Test
+    void failedLoadsHalveTheLimit() throws Exception {
+        failing = true;
+        TileScheduler tiles = new TileScheduler(info);
+        burst(tiles, false);
+        waitUntil(() -> tiles.failed >= 3);
+        assertEquals(2, tiles.limit(), 0.0, tiles.stats());
+        tiles.dispose();
+    }
+
+    // ── Driving the map ──────────────────────────────────────────────────────
+
+    /** Zoom 9 down to 4 around Chicago, or six screens east at zoom 5, one frame apart. */
+    private static JXMapViewer burst(TileScheduler tiles, boolean zoom) throws Exception {
+        JXMapViewer map = new JXMapViewer();
+        tiles.watch(map);
+        BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        SwingUtilities.invokeAndWait(() -> {
+            map.setTileFactory(tiles);
+            map.setSize(WIDTH, HEIGHT);
+            map.setZoom(zoom ? 9 : 5);
+            map.setAddressLocation(CHICAGO);
+        });
+        for (int step = 1; step <= 5; step++) {
+            int s = step;
+            SwingUtilities.invokeAndWait(() -> {
+                if (zoom) {
+                    map.setZoom(9 - s);
+                    map.setAddressLocation(CHICAGO);
+                } else {
+                    Point2D c = map.getCenter();
+                    map.setCenter(new Point2D.Double(c.getX() + WIDTH * 1.2, c.getY()));
+                }
+                paint(map, frame);
+            });
+            Thread.sleep(FRAME_MS);
+        }
+        return map;
+    }
+
+    /** Paints every frame until every tile in the view has loaded. */
+    private static void waitUntilLoaded(JXMapViewer map) throws Exception {
+        BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        boolean[] full = {false};
+        long start = System.nanoTime();
+        while (!full[0]) {
+            SwingUtilities.invokeAndWait(() -> {
+                paint(map, frame);
+                full[0] = viewportLoaded(map);
+            });
+            assertTrue(System.nanoTime() - start < 30_000_000_000L, "viewport never filled");
+            if (!full[0]) Thread.sleep(FRAME_MS);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier done) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!done.getAsBoolean()) {
+            assertTrue(System.nanoTime() - start < 30_000_000_000L, "timed out");
+            Thread.sleep(FRAME_MS);
+        }
+    }
+
+    private static void paint(JXMapViewer map, BufferedImage frame) {
+        Graphics2D g = frame.createGraphics();
+        try {
+            map.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static boolean viewportLoaded(JXMapViewer map) {
+        TileFactory f = map.getTileFactory();
+        int zoom = map.getZoom(), size = f.getTileSize(zoom);
+        int maxTile = f.getInfo().getMapWidthInTilesAtZoom(zoom) - 1;
+        Rectangle view = map.getViewportBounds();
+        for (int y = Math.max(0, view.y / size); y <= Math.min(maxTile, (view.y + view.height - 1) / size); y++) {
+            for (int x = Math.max(0, view.x / size); x <= Math.min(maxTile, (view.x + view.width - 1) / size); x++) {
+                if (!f.getTile(x, y, zoom).isLoaded()) return false;
+            }
+        }
+        return true;
+    }
+
+    // ── Stub server ──────────────────────────────────────────────────────────
+
+    private static void handle(HttpExchange ex) throws IOException {
+        if (!ex.getRequestURI().getPath().startsWith(path + "/")) {
+            try (ex) {
+                ex.sendResponseHeaders(404, -1); // left over from an earlier test
+            }
+            return;
+        }
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try (ex) {
+            Thread.sleep(50);
+            if (failing) {
+                ex.sendResponseHeaders(500, -1);
+                return;
+            }
+            ex.sendResponseHeaders(200, png.length);
+            ex.getResponseBody().write(png);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+}